@@ -0,0 +1,74 @@
+package dev.germane.customer;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of turning a customer row into the DTO the API returns: the
+ * JDBC row mapper reading an in-memory result set, and the DTO mapper.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerMappingBenchmark {
+
+    private CustomerRowMapper customerRowMapper;
+    private CustomerDTOMapper customerDTOMapper;
+    private CachedRowSet row;
+    private Customer customer;
+
+    @Setup
+    public void setUp() throws SQLException {
+        customerRowMapper = new CustomerRowMapper();
+        customerDTOMapper = new CustomerDTOMapper();
+        row = customerRow();
+        customer = customerRowMapper.mapRow(row, 0);
+    }
+
+    @Benchmark
+    public Customer mapRow() throws SQLException {
+        return customerRowMapper.mapRow(row, 0);
+    }
+
+    @Benchmark
+    public CustomerDTO mapDTO() {
+        return customerDTOMapper.apply(customer);
+    }
+
+    private static CachedRowSet customerRow() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        String[] names = {"id", "name", "email", "password", "age", "gender", "profile_image_id"};
+        int[] types = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.INTEGER, Types.VARCHAR, Types.VARCHAR};
+        metaData.setColumnCount(names.length);
+        for (int i = 0; i < names.length; i++) {
+            metaData.setColumnName(i + 1, names[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+
+        CachedRowSet row = RowSetProvider.newFactory().createCachedRowSet();
+        row.setMetaData(metaData);
+        row.moveToInsertRow();
+        row.updateLong(1, 1L);
+        row.updateString(2, "German");
+        row.updateString(3, "german@gmail.com");
+        row.updateString(4, "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2WzWJ6hJtYEYrKJUmTg1vC.");
+        row.updateInt(5, 30);
+        row.updateString(6, Gender.MALE.name());
+        row.updateString(7, "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e");
+        row.insertRow();
+        row.moveToCurrentRow();
+        row.beforeFirst();
+        row.next();
+        return row;
+    }
+}
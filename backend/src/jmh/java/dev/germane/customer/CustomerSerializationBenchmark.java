@@ -0,0 +1,51 @@
+package dev.germane.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Jackson writing a page of customers the way the controller does, with an
+ * object mapper configured like Spring Boot's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerSerializationBenchmark {
+
+    @Param({"1", "20", "100"})
+    private int customers;
+
+    private ObjectMapper objectMapper;
+    private List<CustomerDTO> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+        page = LongStream.rangeClosed(1, customers)
+                .mapToObj(id -> new Customer(
+                        id,
+                        "customer " + id,
+                        "customer" + id + "@gmail.com",
+                        "password",
+                        30,
+                        Gender.FEMALE,
+                        "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e"))
+                .map(customerDTOMapper)
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] writeCustomers() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
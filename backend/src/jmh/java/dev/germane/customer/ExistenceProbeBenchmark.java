@@ -0,0 +1,122 @@
+package dev.germane.customer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * count(id) against EXISTS on a 1M row customer table in a Testcontainers
+ * Postgres, for both existing and missing keys. Needs a running Docker daemon.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExistenceProbeBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private PostgreSQLContainer<?> postgres;
+    private JdbcTemplate jdbcTemplate;
+    private CustomerJDBCDataAccessService underTest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+                .withDatabaseName("customer-benchmark")
+                .withUsername("customer")
+                .withPassword("password");
+        postgres.start();
+
+        Flyway.configure()
+                .dataSource(
+                        postgres.getJdbcUrl(),
+                        postgres.getUsername(),
+                        postgres.getPassword())
+                .load()
+                .migrate();
+
+        HikariDataSource dataSource = DataSourceBuilder
+                .create()
+                .type(HikariDataSource.class)
+                .driverClassName(postgres.getDriverClassName())
+                .url(postgres.getJdbcUrl())
+                .username(postgres.getUsername())
+                .password(postgres.getPassword())
+                .build();
+        // measure with the prepareThreshold from application.yml
+        dataSource.addDataSourceProperty("prepareThreshold", 1);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("""
+                INSERT INTO customer (name, email, password, age, gender)
+                SELECT 'customer ' || n, 'customer' || n || '@gmail.com', 'password', 20, 'MALE'
+                FROM generate_series(1, ?) n
+                """, ROWS);
+        jdbcTemplate.execute("ANALYZE customer");
+
+        underTest = new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        postgres.stop();
+    }
+
+    @Benchmark
+    public boolean countByEmailHit() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(id) FROM customer WHERE email = ?",
+                Integer.class,
+                randomExistingEmail());
+        return count != null && count > 0;
+    }
+
+    @Benchmark
+    public boolean existsByEmailHit() {
+        return underTest.existsCustomerWithEmail(randomExistingEmail());
+    }
+
+    @Benchmark
+    public boolean countByEmailMiss() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(id) FROM customer WHERE email = ?",
+                Integer.class,
+                "missing@gmail.com");
+        return count != null && count > 0;
+    }
+
+    @Benchmark
+    public boolean existsByEmailMiss() {
+        return underTest.existsCustomerWithEmail("missing@gmail.com");
+    }
+
+    @Benchmark
+    public boolean countById() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(id) FROM customer WHERE id = ?",
+                Integer.class,
+                randomId());
+        return count != null && count > 0;
+    }
+
+    @Benchmark
+    public boolean existsById() {
+        return underTest.existsCustomerWithId(randomId());
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, ROWS + 1);
+    }
+
+    private static String randomExistingEmail() {
+        return "customer" + randomId() + "@gmail.com";
+    }
+}
@@ -0,0 +1,69 @@
+package dev.germane.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request: the original three full parses with a
+ * freshly built key and parser each time, a single verification, and a
+ * verification served from the token cache. Issuing a token is measured for
+ * comparison with login.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTUtilBenchmark {
+
+    private static final String SECRET_KEY =
+            "foobar_123456789_foobar_123456789_foobar_123456789_foobar_123456789_";
+
+    private JWTUtil uncached;
+    private JWTUtil cached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncached = new JWTUtil(0);
+        cached = new JWTUtil(1_000);
+        token = uncached.issueToken("german@gmail.com", "ROLE_USER");
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public String issueToken() {
+        return uncached.issueToken("german@gmail.com", "ROLE_USER");
+    }
+
+    @Benchmark
+    public boolean rebuildParserAndParseThreeTimes() {
+        String subject = parse(token).getSubject();
+        return parse(token).getSubject().equals(subject)
+                && parse(token).getExpiration().getTime() > System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public VerifiedToken verifyOnce() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return cached.verify(token);
+    }
+
+    private static Claims parse(String token) {
+        return Jwts
+                .parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
@@ -0,0 +1,60 @@
+package dev.germane;
+
+import dev.germane.exception.ServiceOverloadedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Streamed response bodies, profile images and the customer export, are
+ * copied on this executor instead of the shared application one, whose queue
+ * is unbounded. Each copy holds a thread until the client has read the body,
+ * so once every thread is busy and the queue is full new downloads are told
+ * to retry later instead of waiting behind slow readers.
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor asyncRequestExecutor;
+
+    public AsyncRequestConfig(ThreadPoolTaskExecutor asyncRequestExecutor) {
+        this.asyncRequestExecutor = asyncRequestExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(asyncRequestExecutor);
+    }
+
+    @Configuration
+    static class ExecutorConfig {
+
+        @Bean
+        public ThreadPoolTaskExecutor asyncRequestExecutor(
+                @Value("${web.async.threads}") int threads,
+                @Value("${web.async.queue-capacity}") int queueCapacity,
+                @Value("${web.async.retry-after}") Duration retryAfter,
+                @Value("${spring.threads.virtual.enabled}") boolean virtualThreads) {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(threads);
+            executor.setMaxPoolSize(threads);
+            executor.setQueueCapacity(queueCapacity);
+            executor.setThreadNamePrefix("async-request-");
+            if (virtualThreads) {
+                // cheap to block, but still bounded so slow readers cannot pile up
+                executor.setThreadFactory(Thread.ofVirtual().name("async-request-", 1).factory());
+            }
+            executor.setRejectedExecutionHandler((runnable, pool) -> {
+                throw new ServiceOverloadedException(
+                        "too many downloads in progress, try again later",
+                        retryAfter);
+            });
+            return executor;
+        }
+    }
+}
@@ -11,11 +11,14 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.UUID;
 
 @SpringBootApplication
+@EnableScheduling
 public class Main {
 
     public static void main(String[] args) {
@@ -39,7 +42,8 @@ public class Main {
         s3Service.putObject(
                 s3Buckets.getCustomer(),
                 "foo/bar/devgerman",
-                "Hello World".getBytes());
+                "Hello World".getBytes(),
+                MediaType.TEXT_PLAIN_VALUE);
 
         byte[] obj = s3Service.getObject(
                 s3Buckets.getCustomer(),
@@ -0,0 +1,23 @@
+package dev.germane.customer;
+
+import java.util.List;
+
+public record CustomerBulkRegistrationResponse(
+        int registered,
+        List<DuplicateCustomer> duplicates,
+        List<InvalidCustomer> invalid) {
+
+    /**
+     * A row of the request that was not registered because its email is
+     * already taken. {@code index} is the position of the row in the request.
+     */
+    public record DuplicateCustomer(int index, String email) {
+    }
+
+    /**
+     * A row of the request that was not registered because a field is
+     * missing. It is rejected before any password is hashed.
+     */
+    public record InvalidCustomer(int index, String reason) {
+    }
+}
@@ -0,0 +1,93 @@
+package dev.germane.customer;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Read-through cache of customers by id.
+ * <p>
+ * Caffeine loads a missing key at most once however many threads ask for it
+ * at the same time, the others wait for that load. Hot entries are reloaded in
+ * the background once they are older than the refresh interval while the old
+ * value keeps being served, so a popular profile never expires under load and
+ * sends every waiting request to the database at once. Customers that do not
+ * exist are not cached.
+ * <p>
+ * A load started by a reader runs inside {@code ConcurrentHashMap.compute},
+ * under the monitor of the key's bin. On virtual threads that monitor would
+ * pin the carrier for the whole query, so there the load runs on a virtual
+ * thread of its own and readers wait on its future instead.
+ */
+@Component
+public class CustomerCache {
+
+    private final AsyncLoadingCache<Long, CustomerDTO> customers;
+
+    public CustomerCache(@Qualifier("jdbc") CustomerDao customerDao,
+                         CustomerDTOMapper customerDTOMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${customer.cache.maximum-size}") long maximumSize,
+                         @Value("${customer.cache.expire-after-write}") Duration expireAfterWrite,
+                         @Value("${customer.cache.refresh-after-write}") Duration refreshAfterWrite,
+                         @Value("${spring.threads.virtual.enabled}") boolean virtualThreads) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats();
+        if (virtualThreads) {
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        this.customers = builder.buildAsync(new AsyncCacheLoader<>() {
+            @Override
+            public CompletableFuture<CustomerDTO> asyncLoad(Long customerId, Executor executor) {
+                if (virtualThreads) {
+                    return CompletableFuture.supplyAsync(() -> load(customerId), executor);
+                }
+                return CompletableFuture.completedFuture(load(customerId));
+            }
+
+            @Override
+            public CompletableFuture<CustomerDTO> asyncReload(Long customerId,
+                                                              CustomerDTO oldValue,
+                                                              Executor executor) {
+                return CompletableFuture.supplyAsync(() -> load(customerId), executor);
+            }
+
+            private CustomerDTO load(Long customerId) {
+                return customerDao.selectCustomerById(customerId)
+                        .map(customerDTOMapper)
+                        .orElse(null);
+            }
+        });
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, "customers");
+    }
+
+    public Optional<CustomerDTO> get(Long customerId) {
+        try {
+            return Optional.ofNullable(customers.get(customerId).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidate(Long customerId) {
+        customers.synchronous().invalidate(customerId);
+    }
+}
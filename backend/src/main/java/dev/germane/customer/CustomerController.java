@@ -1,12 +1,30 @@
 package dev.germane.customer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dev.germane.exception.ResourceNotFoundException;
 import dev.germane.jwt.JWTUtil;
+import dev.germane.s3.S3ObjectStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Objects;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 
@@ -14,17 +32,57 @@ import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 @RequestMapping("api/v1/customers")
 public class CustomerController {
 
+    private static final CacheControl IMMUTABLE = CacheControl
+            .maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable();
+
     private final CustomerService customerService;
     private final JWTUtil jwtUtil;
+    private final ObjectWriter customerWriter;
+    private final boolean presignedProfileImages;
+    private final Duration exportTimeout;
 
-    public CustomerController(CustomerService customerService, JWTUtil jwtUtil) {
+    public CustomerController(CustomerService customerService,
+                              JWTUtil jwtUtil,
+                              ObjectMapper objectMapper,
+                              @Value("${aws.s3.presign.enabled}") boolean presignedProfileImages,
+                              @Value("${customer.export.timeout}") Duration exportTimeout) {
         this.customerService = customerService;
         this.jwtUtil = jwtUtil;
+        this.customerWriter = objectMapper.writerFor(CustomerDTO.class);
+        this.presignedProfileImages = presignedProfileImages;
+        this.exportTimeout = exportTimeout;
     }
 
     @GetMapping
-    public List<CustomerDTO> getCustomers() {
-        return customerService.getAllCustomers();
+    public CustomerPage getCustomers(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return customerService.getCustomers(cursor, size);
+    }
+
+    @GetMapping(
+            value = "export",
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public WebAsyncTask<Void> exportCustomers(HttpServletResponse response) {
+        // written here rather than as a StreamingResponseBody, which would
+        // run under the default async timeout instead of this one
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            OutputStream outputStream = response.getOutputStream();
+            customerService.exportCustomers(customer -> {
+                try {
+                    outputStream.write(customerWriter.writeValueAsBytes(customer));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+            return null;
+        });
     }
 
     @GetMapping("{customerId}")
@@ -41,6 +99,12 @@ public class CustomerController {
                 .build();
     }
 
+    @PostMapping("bulk")
+    public CustomerBulkRegistrationResponse registerCustomers(
+            @RequestBody List<CustomerRegistrationRequest> requests) {
+        return customerService.addCustomers(requests);
+    }
+
     @DeleteMapping("{customerId}")
     public void deleteCustomer(@PathVariable("customerId") Long customerId) {
         customerService.deleteCustomerById(customerId);
@@ -57,18 +121,133 @@ public class CustomerController {
             value = "{customerId}/profile-image",
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE
     )
-    public void uploadCustomerProfilePicture(
+    public CompletableFuture<Void> uploadCustomerProfilePicture(
             @PathVariable("customerId") Long customerId,
             @RequestParam("file")MultipartFile file){
-        customerService.uploadCustomerProfileImage(customerId, file);
+        return customerService.uploadCustomerProfileImage(customerId, file);
     }
 
-    @GetMapping(
-            value = "{customerId}/profile-image",
-            produces = MediaType.IMAGE_PNG_VALUE
-    )
-    public byte[] getCustomerProfilePicture(
-            @PathVariable("customerId") Long customerId){
-        return customerService.getCustomerProfileImage(customerId);
+    @PostMapping("{customerId}/profile-image/upload")
+    public ProfileImageUpload createProfileImageUpload(
+            @PathVariable("customerId") Long customerId) {
+        return customerService.createProfileImageUpload(customerId);
+    }
+
+    @PutMapping("{customerId}/profile-image/{profileImageId}")
+    public void completeProfileImageUpload(
+            @PathVariable("customerId") Long customerId,
+            @PathVariable("profileImageId") String profileImageId) {
+        customerService.completeProfileImageUpload(customerId, profileImageId);
+    }
+
+    /**
+     * Answers with a revalidation header only: the image behind this URL
+     * changes when the customer uploads a new one, but the ETag is the image
+     * id, so a repeat load costs a 304.
+     */
+    @GetMapping("{customerId}/profile-image")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getCustomerProfilePicture(
+            @PathVariable("customerId") Long customerId,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        String profileImageId = customerService.getCustomerProfileImageId(customerId);
+        return profileImage(customerId, profileImageId, size, range, ifNoneMatch, CacheControl.noCache());
+    }
+
+    /**
+     * Image ids are never reused, so the versioned URL can be cached forever
+     * by browsers and CDNs.
+     */
+    @GetMapping("{customerId}/profile-image/{profileImageId}")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getCustomerProfilePictureVersion(
+            @PathVariable("customerId") Long customerId,
+            @PathVariable("profileImageId") String profileImageId,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if (!profileImageId.equals(customerService.getCustomerProfileImageId(customerId))) {
+            throw new ResourceNotFoundException(
+                    "customer with id [%s] profile image [%s] not found"
+                            .formatted(customerId, profileImageId));
+        }
+        return profileImage(customerId, profileImageId, size, range, ifNoneMatch, IMMUTABLE);
+    }
+
+    /**
+     * Completes once S3 has answered, so no servlet thread waits on it. The
+     * body is then copied by the async request executor.
+     */
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> profileImage(Long customerId,
+                                                                                  String profileImageId,
+                                                                                  Integer size,
+                                                                                  String range,
+                                                                                  String ifNoneMatch,
+                                                                                  CacheControl cacheControl) {
+        if (presignedProfileImages) {
+            // the signature expires, so the redirect itself must not be stored
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FOUND)
+                    .location(customerService.getCustomerProfileImageUrl(customerId, profileImageId, size))
+                    .cacheControl(CacheControl.noStore())
+                    .build());
+        }
+
+        if (matchesETag(ifNoneMatch, eTag(profileImageId, size))) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag(profileImageId, size))
+                    .cacheControl(cacheControl)
+                    .build());
+        }
+
+        return customerService.getCustomerProfileImage(customerId, profileImageId, size, range)
+                .thenApply(image -> profileImageResponse(profileImageId, size, cacheControl, image));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> profileImageResponse(String profileImageId,
+                                                                              Integer size,
+                                                                              CacheControl cacheControl,
+                                                                              ProfileImage image) {
+        S3ObjectStream content = image.content();
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(content.contentRange() == null ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT)
+                .eTag(eTag(profileImageId, image.size()))
+                // the original stands in for a thumbnail still being generated
+                .cacheControl(Objects.equals(size, image.size()) ? cacheControl : CacheControl.noCache())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                // thumbnails are JPEG whatever the original was
+                .contentType(image.contentType());
+        if (content.contentRange() != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, content.contentRange());
+        }
+        if (content.contentLength() != null) {
+            response.contentLength(content.contentLength());
+        }
+        return response.body(outputStream -> {
+            try (InputStream inputStream = content.content()) {
+                inputStream.transferTo(outputStream);
+            }
+        });
+    }
+
+    private static String eTag(String profileImageId, Integer size) {
+        return size == null
+                ? "\"%s\"".formatted(profileImageId)
+                : "\"%s_%d\"".formatted(profileImageId, size);
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
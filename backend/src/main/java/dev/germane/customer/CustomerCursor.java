@@ -0,0 +1,50 @@
+package dev.germane.customer;
+
+import dev.germane.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the customer table, handed to clients as an opaque string.
+ * A NEXT cursor points past the given id, a PREVIOUS cursor points before it.
+ */
+public record CustomerCursor(Direction direction, Long customerId) {
+
+    public enum Direction {
+        NEXT,
+        PREVIOUS
+    }
+
+    public static CustomerCursor next(Long customerId) {
+        return new CustomerCursor(Direction.NEXT, customerId);
+    }
+
+    public static CustomerCursor previous(Long customerId) {
+        return new CustomerCursor(Direction.PREVIOUS, customerId);
+    }
+
+    public String encode() {
+        String raw = "%s:%s".formatted(direction.name(), customerId);
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CustomerCursor decode(String cursor) {
+        try {
+            String raw = new String(
+                    Base64.getUrlDecoder().decode(cursor),
+                    StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new CustomerCursor(
+                    Direction.valueOf(parts[0]),
+                    Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("invalid cursor [%s]".formatted(cursor));
+        }
+    }
+}
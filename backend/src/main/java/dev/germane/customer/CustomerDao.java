@@ -2,16 +2,22 @@ package dev.germane.customer;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CustomerDao {
 
     List<Customer> selectAllCustomers();
+    List<Customer> selectCustomersAfter(Long customerId, int limit);
+    List<Customer> selectCustomersBefore(Long customerId, int limit);
+    void streamAllCustomers(Consumer<Customer> consumer);
     Optional<Customer> selectCustomerById(Long customerId);
     void insertCustomer(Customer customer);
+    int[] insertCustomers(List<Customer> customers);
     boolean existsCustomerWithEmail(String email);
     boolean existsCustomerWithId(Long customerId);
-    void deleteById(Long customerId);
+    int deleteById(Long customerId);
     void updateCustomer(Customer customer);
     Optional<Customer> selectUserByEmail(String email);
-    void updateProfileImageId(Long customerId, String profileImageId);
+    int updateProfileImageId(Long customerId, String profileImageId);
+    List<String> selectReferencedProfileImageIds(List<String> profileImageIds);
 }
@@ -1,14 +1,24 @@
 package dev.germane.customer;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDao {
 
+    static final int STREAM_FETCH_SIZE = 1000;
+    static final int INSERT_BATCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
 
@@ -26,6 +36,60 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
         return jdbcTemplate.query(sql, customerRowMapper);
     }
 
+    @Override
+    public List<Customer> selectCustomersAfter(Long customerId, int limit) {
+        var sql = """
+                SELECT id, name, email, password, age, gender, profile_image_id
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+        return jdbcTemplate.query(sql, customerRowMapper, customerId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomersBefore(Long customerId, int limit) {
+        var sql = """
+                SELECT id, name, email, password, age, gender, profile_image_id
+                FROM (
+                    SELECT id, name, email, password, age, gender, profile_image_id
+                    FROM customer
+                    WHERE id < ?
+                    ORDER BY id DESC
+                    LIMIT ?
+                ) page
+                ORDER BY id
+                """;
+        return jdbcTemplate.query(sql, customerRowMapper, customerId, limit);
+    }
+
+    /**
+     * Postgres only honours the fetch size inside a transaction, otherwise the
+     * driver still materializes the whole result set before the first row.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        var sql = """
+                SELECT id, name, email, password, age, gender, profile_image_id
+                FROM customer
+                ORDER BY id
+                """;
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            sql,
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(STREAM_FETCH_SIZE);
+                    return statement;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(
+                        customerRowMapper.mapRow(rs, rs.getRow()))
+        );
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Long customerId) {
         var sql = """
@@ -53,68 +117,109 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
                 customer.getGender().name());
     }
 
+    /**
+     * Rows are sent in JDBC batches of {@link #INSERT_BATCH_SIZE}. Rows whose
+     * email is already taken, by an existing customer or an earlier row of the
+     * same list, are skipped and get an update count of 0.
+     */
+    @Override
+    @Transactional
+    public int[] insertCustomers(List<Customer> customers) {
+        var sql = """
+                INSERT INTO customer (name, email, password, age, gender)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT ON CONSTRAINT customer_email_unique DO NOTHING
+                """;
+        int[][] batches = jdbcTemplate.batchUpdate(sql, customers, INSERT_BATCH_SIZE,
+                (ps, customer) -> {
+                    ps.setString(1, customer.getName());
+                    ps.setString(2, customer.getEmail());
+                    ps.setString(3, customer.getPassword());
+                    ps.setInt(4, customer.getAge());
+                    ps.setString(5, customer.getGender().name());
+                });
+        return Arrays.stream(batches)
+                .flatMapToInt(Arrays::stream)
+                .toArray();
+    }
+
+    /**
+     * EXISTS lets Postgres stop at the first matching index entry instead of
+     * counting every match.
+     */
     @Override
     public boolean existsCustomerWithEmail(String email) {
         var sql = """
-                SELECT count(id)
-                FROM customer
-                WHERE email = ?
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM customer
+                    WHERE email = ?
+                )
                 """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, email);
-        return count != null && count > 0;
+        return Boolean.TRUE.equals(
+                jdbcTemplate.queryForObject(sql, Boolean.class, email));
     }
 
     @Override
     public boolean existsCustomerWithId(Long customerId) {
         var sql = """
-                SELECT count(id)
-                FROM customer
-                WHERE id = ?
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM customer
+                    WHERE id = ?
+                )
                 """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, customerId);
-        return count != null && count > 0;
-
+        return Boolean.TRUE.equals(
+                jdbcTemplate.queryForObject(sql, Boolean.class, customerId));
     }
 
     @Override
-    public void deleteById(Long customerId) {
+    public int deleteById(Long customerId) {
         var sql = """
                 DELETE
                 FROM customer
                 WHERE id = ?
                 """;
-        jdbcTemplate.update(sql, customerId);
+        return jdbcTemplate.update(sql, customerId);
     }
 
+    /**
+     * Only the non-null fields of the given customer are written, in a single
+     * UPDATE statement.
+     */
     @Override
     public void updateCustomer(Customer customer) {
+        List<String> assignments = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+
         if (customer.getName() != null) {
-            String sql = "UPDATE customer SET name = ? WHERE id = ?";
-            jdbcTemplate.update(sql,
-                    customer.getName(),
-                    customer.getId());
+            assignments.add("name = ?");
+            args.add(customer.getName());
         }
 
         if (customer.getAge() != null) {
-            String sql = "UPDATE customer SET age = ? WHERE id = ?";
-            jdbcTemplate.update(sql,
-                    customer.getAge(),
-                    customer.getId());
+            assignments.add("age = ?");
+            args.add(customer.getAge());
         }
 
         if (customer.getEmail() != null) {
-            String sql = "UPDATE customer SET email = ? WHERE id = ?";
-            jdbcTemplate.update(sql,
-                    customer.getEmail(),
-                    customer.getId());
+            assignments.add("email = ?");
+            args.add(customer.getEmail());
         }
 
         if (customer.getGender() != null) {
-            String sql = "UPDATE customer SET gender = ? WHERE id = ?";
-            jdbcTemplate.update(sql,
-                    customer.getGender().name(),
-                    customer.getId());
+            assignments.add("gender = ?");
+            args.add(customer.getGender().name());
+        }
+
+        if (assignments.isEmpty()) {
+            return;
         }
+
+        args.add(customer.getId());
+        var sql = "UPDATE customer SET %s WHERE id = ?"
+                .formatted(String.join(", ", assignments));
+        jdbcTemplate.update(sql, args.toArray());
     }
 
     @Override
@@ -131,12 +236,28 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
-    public void updateProfileImageId(Long customerId, String profileImageId) {
+    public int updateProfileImageId(Long customerId, String profileImageId) {
         var sql = """
                 UPDATE customer
                 SET profile_image_id = ?
                 WHERE id = ?
                 """;
-        jdbcTemplate.update(sql, profileImageId, customerId);
+        return jdbcTemplate.update(sql, profileImageId, customerId);
+    }
+
+    @Override
+    public List<String> selectReferencedProfileImageIds(List<String> profileImageIds) {
+        var sql = """
+                SELECT DISTINCT profile_image_id
+                FROM customer
+                WHERE profile_image_id = ANY (?)
+                """;
+        return jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(sql);
+                    statement.setArray(1, connection.createArrayOf("varchar", profileImageIds.toArray()));
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getString("profile_image_id"));
     }
 }
@@ -1,17 +1,29 @@
 package dev.germane.customer;
 
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("jpa")
 public class CustomerJPADataAccessService implements CustomerDao{
 
     private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
 
-    public CustomerJPADataAccessService(CustomerRepository customerRepository) {
+    public CustomerJPADataAccessService(CustomerRepository customerRepository,
+                                        EntityManager entityManager) {
         this.customerRepository = customerRepository;
+        this.entityManager = entityManager;
     }
 
     @Override
@@ -19,6 +31,31 @@ public class CustomerJPADataAccessService implements CustomerDao{
         return customerRepository.findAll();
     }
 
+    @Override
+    public List<Customer> selectCustomersAfter(Long customerId, int limit) {
+        return customerRepository.findByIdGreaterThanOrderByIdAsc(customerId, Limit.of(limit));
+    }
+
+    @Override
+    public List<Customer> selectCustomersBefore(Long customerId, int limit) {
+        List<Customer> customers = new ArrayList<>(
+                customerRepository.findByIdLessThanOrderByIdDesc(customerId, Limit.of(limit)));
+        Collections.reverse(customers);
+        return customers;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        try (Stream<Customer> customers = customerRepository.streamAllByOrderByIdAsc()) {
+            customers.forEach(customer -> {
+                consumer.accept(customer);
+                // keep the persistence context from growing with the table
+                entityManager.detach(customer);
+            });
+        }
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Long customerId) {
         return customerRepository.findById(customerId);
@@ -29,6 +66,24 @@ public class CustomerJPADataAccessService implements CustomerDao{
         customerRepository.save(customer);
     }
 
+    @Override
+    @Transactional
+    public int[] insertCustomers(List<Customer> customers) {
+        int[] inserted = new int[customers.size()];
+        Set<String> emails = new HashSet<>();
+        List<Customer> newCustomers = new ArrayList<>();
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            if (emails.add(customer.getEmail())
+                    && !customerRepository.existsCustomerByEmail(customer.getEmail())) {
+                newCustomers.add(customer);
+                inserted[i] = 1;
+            }
+        }
+        customerRepository.saveAll(newCustomers);
+        return inserted;
+    }
+
     @Override
     public boolean existsCustomerWithEmail(String email) {
         return customerRepository.existsCustomerByEmail(email);
@@ -40,13 +95,32 @@ public class CustomerJPADataAccessService implements CustomerDao{
     }
 
     @Override
-    public void deleteById(Long customerId) {
-        customerRepository.deleteById(customerId);
+    public int deleteById(Long customerId) {
+        return customerRepository.deleteCustomerById(customerId);
     }
 
+    /**
+     * Only the non-null fields of the given customer are applied, so callers
+     * can pass just the fields that changed.
+     */
     @Override
-    public void updateCustomer(Customer customer) {
-        customerRepository.save(customer);
+    @Transactional
+    public void updateCustomer(Customer update) {
+        customerRepository.findById(update.getId()).ifPresent(customer -> {
+            if (update.getName() != null) {
+                customer.setName(update.getName());
+            }
+            if (update.getAge() != null) {
+                customer.setAge(update.getAge());
+            }
+            if (update.getEmail() != null) {
+                customer.setEmail(update.getEmail());
+            }
+            if (update.getGender() != null) {
+                customer.setGender(update.getGender());
+            }
+            customerRepository.save(customer);
+        });
     }
 
     @Override
@@ -55,7 +129,12 @@ public class CustomerJPADataAccessService implements CustomerDao{
     }
 
     @Override
-    public void updateProfileImageId(Long customerId, String profileImageId) {
-        customerRepository.updateProfileImageId(customerId, profileImageId);
+    public int updateProfileImageId(Long customerId, String profileImageId) {
+        return customerRepository.updateProfileImageId(customerId, profileImageId);
+    }
+
+    @Override
+    public List<String> selectReferencedProfileImageIds(List<String> profileImageIds) {
+        return customerRepository.findReferencedProfileImageIds(profileImageIds);
     }
 }
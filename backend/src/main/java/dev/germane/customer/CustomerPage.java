@@ -0,0 +1,9 @@
+package dev.germane.customer;
+
+import java.util.List;
+
+public record CustomerPage(
+        List<CustomerDTO> content,
+        String nextCursor,
+        String previousCursor) {
+}
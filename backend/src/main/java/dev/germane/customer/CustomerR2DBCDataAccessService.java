@@ -0,0 +1,83 @@
+package dev.germane.customer;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@Profile("reactive")
+public class CustomerR2DBCDataAccessService implements ReactiveCustomerDao {
+
+    static final int FETCH_SIZE = 256;
+
+    private final DatabaseClient databaseClient;
+
+    public CustomerR2DBCDataAccessService(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * Rows are fetched {@link #FETCH_SIZE} at a time through a portal, and the
+     * next batch is only requested once the subscriber has asked for more, so
+     * a slow client holds back the query instead of filling memory.
+     */
+    @Override
+    public Flux<Customer> selectCustomersAfter(Long customerId) {
+        var sql = """
+                SELECT id, name, email, password, age, gender, profile_image_id
+                FROM customer
+                WHERE id > $1
+                ORDER BY id
+                """;
+        return databaseClient.sql(sql)
+                .bind(0, customerId)
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(CustomerR2DBCDataAccessService::toCustomer)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> selectCustomersAfter(Long customerId, int limit) {
+        var sql = """
+                SELECT id, name, email, password, age, gender, profile_image_id
+                FROM customer
+                WHERE id > $1
+                ORDER BY id
+                LIMIT $2
+                """;
+        return databaseClient.sql(sql)
+                .bind(0, customerId)
+                .bind(1, limit)
+                .map(CustomerR2DBCDataAccessService::toCustomer)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Long customerId) {
+        var sql = """
+                SELECT id, name, email, password, age, gender, profile_image_id
+                FROM customer
+                WHERE id = $1
+                """;
+        return databaseClient.sql(sql)
+                .bind(0, customerId)
+                .map(CustomerR2DBCDataAccessService::toCustomer)
+                .one();
+    }
+
+    private static Customer toCustomer(Readable row) {
+        return new Customer(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("password", String.class),
+                row.get("age", Integer.class),
+                Gender.valueOf(row.get("gender", String.class)),
+                row.get("profile_image_id", String.class)
+        );
+    }
+}
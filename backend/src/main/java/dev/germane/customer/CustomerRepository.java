@@ -1,10 +1,18 @@
 package dev.germane.customer;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface CustomerRepository
         extends JpaRepository<Customer, Long> {
@@ -14,7 +22,22 @@ public interface CustomerRepository
 
     Optional<Customer> findByEmail(String email);
 
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long customerId, Limit limit);
+    List<Customer> findByIdLessThanOrderByIdDesc(Long customerId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Customer> streamAllByOrderByIdAsc();
+
+    @Transactional
     @Modifying(clearAutomatically = true)
     @Query("UPDATE Customer c SET c.profileImageId = ?2 WHERE c.id = ?1")
-    void updateProfileImageId(Long customerId, String profileImageId);
+    int updateProfileImageId(Long customerId, String profileImageId);
+
+    @Query("SELECT DISTINCT c.profileImageId FROM Customer c WHERE c.profileImageId IN ?1")
+    List<String> findReferencedProfileImageIds(List<String> profileImageIds);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Customer c WHERE c.id = ?1")
+    int deleteCustomerById(Long customerId);
 }
@@ -4,102 +4,288 @@ import dev.germane.exception.DuplicateResourceException;
 import dev.germane.exception.RequestValidationException;
 import dev.germane.exception.ResourceNotFoundException;
 import dev.germane.s3.S3Buckets;
+import dev.germane.s3.S3PresignedUrl;
 import dev.germane.s3.S3Service;
+import dev.germane.security.BulkPasswordEncoder;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
 
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_BULK_SIZE = 10_000;
+
     private final CustomerDao customerDao;
     private final PasswordEncoder passwordEncoder;
+    private final BulkPasswordEncoder bulkPasswordEncoder;
     private final CustomerDTOMapper customerDTOMapper;
     private final S3Service s3Service;
     private final S3Buckets s3Buckets;
+    private final CustomerCache customerCache;
+    private final ProfileImageThumbnails profileImageThumbnails;
+    private final ProfileImageReferenceDao profileImageReferenceDao;
+    private final boolean deduplicateProfileImages;
+    private final long maxProfileImageSize;
+    private final Executor asyncRequestExecutor;
 
     public CustomerService(@Qualifier("jdbc") CustomerDao customerDao,
                            PasswordEncoder passwordEncoder,
-                           CustomerDTOMapper customerDTOMapper, S3Service s3Service, S3Buckets s3Buckets) {
+                           BulkPasswordEncoder bulkPasswordEncoder,
+                           CustomerDTOMapper customerDTOMapper, S3Service s3Service, S3Buckets s3Buckets,
+                           CustomerCache customerCache,
+                           ProfileImageThumbnails profileImageThumbnails,
+                           ProfileImageReferenceDao profileImageReferenceDao,
+                           @Value("${customer.profile-image.deduplicate}") boolean deduplicateProfileImages,
+                           @Value("${spring.servlet.multipart.max-file-size}") DataSize maxProfileImageSize,
+                           @Qualifier("asyncRequestExecutor") Executor asyncRequestExecutor) {
         this.customerDao = customerDao;
         this.passwordEncoder = passwordEncoder;
+        this.bulkPasswordEncoder = bulkPasswordEncoder;
         this.customerDTOMapper = customerDTOMapper;
         this.s3Service = s3Service;
         this.s3Buckets = s3Buckets;
+        this.customerCache = customerCache;
+        this.profileImageThumbnails = profileImageThumbnails;
+        this.profileImageReferenceDao = profileImageReferenceDao;
+        this.deduplicateProfileImages = deduplicateProfileImages;
+        this.maxProfileImageSize = maxProfileImageSize.toBytes();
+        this.asyncRequestExecutor = asyncRequestExecutor;
+    }
+
+    public CustomerPage getCustomers(String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new RequestValidationException(
+                    "page size must be between 1 and %s".formatted(MAX_PAGE_SIZE));
+        }
+
+        if (cursor == null) {
+            return nextPage(null, pageSize);
+        }
+
+        CustomerCursor customerCursor = CustomerCursor.decode(cursor);
+        return switch (customerCursor.direction()) {
+            case NEXT -> nextPage(customerCursor.customerId(), pageSize);
+            case PREVIOUS -> previousPage(customerCursor.customerId(), pageSize);
+        };
+    }
+
+    private CustomerPage nextPage(Long afterId, int pageSize) {
+        // fetch one extra row to find out whether there is a following page
+        List<Customer> customers = customerDao.selectCustomersAfter(
+                afterId == null ? 0L : afterId, pageSize + 1);
+        boolean hasNext = customers.size() > pageSize;
+        if (hasNext) {
+            customers = customers.subList(0, pageSize);
+        }
+
+        return toPage(
+                customers,
+                hasNext,
+                afterId != null && !customers.isEmpty());
+    }
+
+    private CustomerPage previousPage(Long beforeId, int pageSize) {
+        List<Customer> customers = customerDao.selectCustomersBefore(beforeId, pageSize + 1);
+        boolean hasPrevious = customers.size() > pageSize;
+        if (hasPrevious) {
+            customers = customers.subList(1, customers.size());
+        }
+
+        return toPage(customers, !customers.isEmpty(), hasPrevious);
+    }
+
+    private CustomerPage toPage(List<Customer> customers,
+                                boolean hasNext,
+                                boolean hasPrevious) {
+        String nextCursor = hasNext
+                ? CustomerCursor.next(customers.get(customers.size() - 1).getId()).encode()
+                : null;
+        String previousCursor = hasPrevious
+                ? CustomerCursor.previous(customers.get(0).getId()).encode()
+                : null;
+
+        return new CustomerPage(
+                customers.stream()
+                        .map(customerDTOMapper)
+                        .collect(Collectors.toList()),
+                nextCursor,
+                previousCursor);
     }
 
-    public List<CustomerDTO> getAllCustomers() {
-        return customerDao.selectAllCustomers()
-                .stream()
-                .map(customerDTOMapper)
-                .collect(Collectors.toList());
+    public void exportCustomers(Consumer<CustomerDTO> consumer) {
+        customerDao.streamAllCustomers(
+                customer -> consumer.accept(customerDTOMapper.apply(customer)));
     }
 
     public CustomerDTO getCustomer(Long id) {
-        return customerDTOMapper.apply(getCustomerById(id));
+        return customerCache.get(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        ("customer with id [%s] not found").formatted(id)
+                ));
     }
 
     public void addCustomer(
             CustomerRegistrationRequest customerRegistrationRequest) {
-        //check if email exists
-        if (customerDao.existsCustomerWithEmail(customerRegistrationRequest.email())) {
+        Customer customer = toCustomer(customerRegistrationRequest);
+
+        // the customer_email_unique constraint rejects taken emails atomically
+        try {
+            customerDao.insertCustomer(customer);
+        } catch (DuplicateKeyException e) {
             throw new DuplicateResourceException("Email already taken");
         }
-        //add
-        Customer customer = new Customer(
-                customerRegistrationRequest.name(),
-                customerRegistrationRequest.email(),
-                passwordEncoder.encode(customerRegistrationRequest.password()),
-                customerRegistrationRequest.age(),
-                customerRegistrationRequest.gender());
+    }
 
-        customerDao.insertCustomer(customer);
+    public CustomerBulkRegistrationResponse addCustomers(
+            List<CustomerRegistrationRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BULK_SIZE) {
+            throw new RequestValidationException(
+                    "bulk registration must contain between 1 and %s customers"
+                            .formatted(MAX_BULK_SIZE));
+        }
+
+        // rows missing a field would fail the whole batch, so they are set
+        // aside before any password is hashed
+        List<CustomerBulkRegistrationResponse.InvalidCustomer> invalid = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String reason = invalidReason(requests.get(i));
+            if (reason != null) {
+                invalid.add(new CustomerBulkRegistrationResponse.InvalidCustomer(i, reason));
+            } else {
+                indexes.add(i);
+            }
+        }
+        if (indexes.isEmpty()) {
+            return new CustomerBulkRegistrationResponse(0, List.of(), invalid);
+        }
+
+        // BCrypt dominates the cost of a row, so hash in batches the size of
+        // the password hashing pool before the whole list goes to the
+        // database in batches
+        List<String> passwordHashes = bulkPasswordEncoder.encodeAll(
+                indexes.stream().map(i -> requests.get(i).password()).toList());
+        List<Customer> customers = new ArrayList<>(indexes.size());
+        for (int i = 0; i < indexes.size(); i++) {
+            CustomerRegistrationRequest request = requests.get(indexes.get(i));
+            customers.add(new Customer(
+                    request.name(),
+                    request.email(),
+                    passwordHashes.get(i),
+                    request.age(),
+                    request.gender()));
+        }
+        int[] inserted = customerDao.insertCustomers(customers);
+
+        List<CustomerBulkRegistrationResponse.DuplicateCustomer> duplicates = new ArrayList<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] == 0) {
+                duplicates.add(new CustomerBulkRegistrationResponse.DuplicateCustomer(
+                        indexes.get(i), customers.get(i).getEmail()));
+            }
+        }
+        return new CustomerBulkRegistrationResponse(
+                customers.size() - duplicates.size(),
+                duplicates,
+                invalid);
     }
 
-    public void deleteCustomerById(Long customerId) {
-        checkIfCustomerExists(customerId);
-        customerDao.deleteById(customerId);
+    private static String invalidReason(CustomerRegistrationRequest request) {
+        if (request == null) {
+            return "customer is missing";
+        }
+        if (StringUtils.isBlank(request.name())) {
+            return "name is missing";
+        }
+        if (StringUtils.isBlank(request.email())) {
+            return "email is missing";
+        }
+        if (StringUtils.isBlank(request.password())) {
+            return "password is missing";
+        }
+        if (request.age() == null) {
+            return "age is missing";
+        }
+        if (request.gender() == null) {
+            return "gender is missing";
+        }
+        return null;
     }
 
-    private void checkIfCustomerExists(Long customerId) {
-        if (!customerDao.existsCustomerWithId(customerId)) {
-            throw new ResourceNotFoundException(
-                    "Customer with id [%s] not found".formatted(customerId)
-            );
+    private Customer toCustomer(CustomerRegistrationRequest request) {
+        return new Customer(
+                request.name(),
+                request.email(),
+                passwordEncoder.encode(request.password()),
+                request.age(),
+                request.gender());
+    }
+
+    public void deleteCustomerById(Long customerId) {
+        if (customerDao.deleteById(customerId) == 0) {
+            throw customerNotFound(customerId);
         }
+        customerCache.invalidate(customerId);
+    }
+
+    private ResourceNotFoundException customerNotFound(Long customerId) {
+        return new ResourceNotFoundException(
+                "Customer with id [%s] not found".formatted(customerId)
+        );
     }
 
     public void updateCustomer(Long customerId, CustomerUpdateRequest request) {
         Customer customer = getCustomerById(customerId);
+        // only the changed fields are set, the DAO writes them in one statement
+        Customer update = new Customer();
+        update.setId(customerId);
         boolean changes = false;
 
         if (request.name() != null && !request.name().equals(customer.getName())) {
-            customer.setName(request.name());
+            update.setName(request.name());
             changes = true;
         }
 
         if (request.age() != null && !request.age().equals(customer.getAge())) {
-            customer.setAge(request.age());
+            update.setAge(request.age());
             changes = true;
         }
 
         if (request.gender() != null && !request.gender().equals(customer.getGender())) {
-            customer.setGender(request.gender());
+            update.setGender(request.gender());
             changes = true;
         }
 
         if (request.email() != null && !request.email().equals(customer.getEmail())) {
-            if (customerDao.existsCustomerWithEmail(request.email())) {
-                throw new DuplicateResourceException("Email already taken");
-            }
-            customer.setEmail(request.email());
+            update.setEmail(request.email());
             changes = true;
         }
 
@@ -107,37 +293,205 @@ public class CustomerService {
             throw new RequestValidationException("no data changes found");
         }
 
-        customerDao.updateCustomer(customer);
+        try {
+            customerDao.updateCustomer(update);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateResourceException("Email already taken");
+        }
+        customerCache.invalidate(customerId);
     }
 
-    public void uploadCustomerProfileImage(Long customerId, MultipartFile file) {
-        checkIfCustomerExists(customerId);
-        String profileImageId = UUID.randomUUID().toString();
+    /**
+     * Uploads the image through the async S3 client. The returned future
+     * completes once the object is stored and the customer points at it,
+     * the customer update running on the async request executor rather than
+     * on the S3 client's completion threads.
+     * <p>
+     * With deduplication on, the image id is the SHA-256 of its content and
+     * the upload is skipped when an image with the same bytes is already
+     * stored. Thumbnail generation of the first upload may have been dropped
+     * or failed, so they are generated again when the largest one is missing.
+     */
+    public CompletableFuture<Void> uploadCustomerProfileImage(Long customerId, MultipartFile file) {
+        if (!deduplicateProfileImages) {
+            String profileImageId = UUID.randomUUID().toString();
+            return putProfileImage(ProfileImageKeys.original(customerId, profileImageId), file)
+                    .thenRunAsync(() -> assignProfileImage(customerId, profileImageId, true),
+                            asyncRequestExecutor);
+        }
+
+        String contentHash = sha256(file);
+        String key = ProfileImageKeys.original(customerId, contentHash);
+        // must happen before the existence check, see ProfileImageReferenceDao#touch
+        profileImageReferenceDao.touch(contentHash);
+        return s3Service.objectExistsAsync(s3Buckets.getCustomer(), key)
+                .thenCompose(exists -> exists
+                        ? thumbnailsMissing(customerId, contentHash)
+                        : putProfileImage(key, file).thenApply(ignored -> true))
+                .thenAcceptAsync(
+                        generateThumbnails -> assignProfileImage(customerId, contentHash, generateThumbnails),
+                        asyncRequestExecutor);
+    }
+
+    private CompletableFuture<Boolean> thumbnailsMissing(Long customerId, String profileImageId) {
+        // the largest thumbnail is stored last
+        String key = ProfileImageKeys.thumbnail(
+                customerId, profileImageId, ProfileImageThumbnails.SIZES.getLast());
+        return s3Service.objectExistsAsync(s3Buckets.getCustomer(), key)
+                .thenApply(exists -> !exists);
+    }
+
+    private CompletableFuture<Void> putProfileImage(String key, MultipartFile file) {
+        InputStream inputStream;
         try {
-            s3Service.putObject(
-                    s3Buckets.getCustomer(),
-                    "profile-images/%s/%s".formatted(customerId, profileImageId),
-                    file.getBytes()
-            );
+            inputStream = file.getInputStream();
         } catch (IOException e) {
             throw new RuntimeException("failed to upload profile image",e);
         }
-        customerDao.updateProfileImageId(customerId, profileImageId);
+        return s3Service.putObjectAsync(
+                        s3Buckets.getCustomer(),
+                        key,
+                        inputStream,
+                        file.getSize(),
+                        ProfileImage.contentType(file.getContentType()))
+                .whenComplete((ignored, e) -> IOUtils.closeQuietly(inputStream));
+    }
 
+    private void assignProfileImage(Long customerId, String profileImageId, boolean generateThumbnails) {
+        if (customerDao.updateProfileImageId(customerId, profileImageId) == 0) {
+            throw customerNotFound(customerId);
+        }
+        customerCache.invalidate(customerId);
+        if (generateThumbnails) {
+            profileImageThumbnails.generateAsync(customerId, profileImageId);
+        }
     }
 
-    public byte[] getCustomerProfileImage(Long customerId) {
-        Customer customer = getCustomerById(customerId);
+    /**
+     * Hashes the upload before it is sent anywhere. Multipart files are
+     * already buffered by the container, so reading one twice costs a local
+     * read and saves the PUT for a duplicate.
+     */
+    private static String sha256(MultipartFile file) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new RuntimeException("failed to upload profile image",e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-        if(StringUtils.isBlank(customer.getProfileImageId())){
+    /**
+     * Reserves a new image id and returns a presigned URL the client uploads
+     * the image to directly. The id is only recorded once the client reports
+     * the upload as done through {@link #completeProfileImageUpload}. Uploads
+     * are held to the multipart file size limit.
+     */
+    public ProfileImageUpload createProfileImageUpload(Long customerId) {
+        getCustomer(customerId);
+        String profileImageId = UUID.randomUUID().toString();
+        S3PresignedUrl url = s3Service.presignPutObject(
+                s3Buckets.getCustomer(),
+                ProfileImageKeys.original(customerId, profileImageId),
+                maxProfileImageSize);
+        return new ProfileImageUpload(profileImageId, url.url(), url.expiresAt());
+    }
+
+    public void completeProfileImageUpload(Long customerId, String profileImageId) {
+        try {
+            UUID.fromString(profileImageId);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException(
+                    "invalid profile image id [%s]".formatted(profileImageId));
+        }
+
+        String key = ProfileImageKeys.original(customerId, profileImageId);
+        OptionalLong size = s3Service.objectSize(s3Buckets.getCustomer(), key);
+        if (size.isEmpty()) {
+            throw new RequestValidationException(
+                    "profile image [%s] has not been uploaded".formatted(profileImageId));
+        }
+        // S3 cannot sign a limit into a presigned PUT, so check what arrived
+        if (size.getAsLong() > maxProfileImageSize) {
+            s3Service.deleteObjects(s3Buckets.getCustomer(), List.of(key));
+            throw new RequestValidationException(
+                    "profile image [%s] is larger than %s bytes".formatted(profileImageId, maxProfileImageSize));
+        }
+        assignProfileImage(customerId, profileImageId, true);
+    }
+
+    public String getCustomerProfileImageId(Long customerId) {
+        CustomerDTO customer = getCustomer(customerId);
+
+        if(StringUtils.isBlank(customer.profileImageId())){
             throw new ResourceNotFoundException(
                     "customer with id [%s] profile image not found".formatted(customerId)
             );
         }
 
-        return s3Service.getObject(
-                s3Buckets.getCustomer(),
-                "profile-images/%s/%s".formatted(customerId, customer.getProfileImageId()));
+        return customer.profileImageId();
+    }
+
+    /**
+     * Serves the thumbnail of the given size when it has been generated and
+     * the original otherwise.
+     */
+    public CompletableFuture<ProfileImage> getCustomerProfileImage(Long customerId,
+                                                                   String profileImageId,
+                                                                   Integer size,
+                                                                   String range) {
+        if (size == null) {
+            return getOriginalProfileImage(customerId, profileImageId, range);
+        }
+        validateProfileImageSize(size);
+        return s3Service.getObjectStreamAsync(
+                        s3Buckets.getCustomer(),
+                        ProfileImageKeys.thumbnail(customerId, profileImageId, size),
+                        range)
+                .thenApply(content -> new ProfileImage(size, content))
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if (cause instanceof ResourceNotFoundException) {
+                        // not generated yet, fall back to the original
+                        return getOriginalProfileImage(customerId, profileImageId, range);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    private CompletableFuture<ProfileImage> getOriginalProfileImage(Long customerId,
+                                                                    String profileImageId,
+                                                                    String range) {
+        return s3Service.getObjectStreamAsync(
+                        s3Buckets.getCustomer(),
+                        ProfileImageKeys.original(customerId, profileImageId),
+                        range)
+                .thenApply(content -> new ProfileImage(null, content));
+    }
+
+    public URI getCustomerProfileImageUrl(Long customerId, String profileImageId, Integer size) {
+        String key = ProfileImageKeys.original(customerId, profileImageId);
+        if (size != null) {
+            validateProfileImageSize(size);
+            String thumbnailKey = ProfileImageKeys.thumbnail(customerId, profileImageId, size);
+            if (s3Service.objectExists(s3Buckets.getCustomer(), thumbnailKey)) {
+                key = thumbnailKey;
+            }
+        }
+        return s3Service.presignGetObject(s3Buckets.getCustomer(), key).url();
+    }
+
+    private static void validateProfileImageSize(int size) {
+        if (!ProfileImageThumbnails.SIZES.contains(size)) {
+            throw new RequestValidationException(
+                    "profile image size must be one of %s".formatted(ProfileImageThumbnails.SIZES));
+        }
     }
 
     private Customer getCustomerById(Long customerId) {
@@ -0,0 +1,37 @@
+package dev.germane.customer;
+
+import dev.germane.s3.S3ObjectStream;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A profile image being served. {@code size} is the thumbnail size that was
+ * found, or null when the original is served.
+ */
+public record ProfileImage(
+        Integer size,
+        S3ObjectStream content) {
+
+    // served from this origin, so only raster formats that cannot carry script
+    private static final Set<String> CONTENT_TYPES = Set.of(
+            MediaType.IMAGE_JPEG_VALUE,
+            MediaType.IMAGE_PNG_VALUE,
+            MediaType.IMAGE_GIF_VALUE,
+            "image/webp");
+
+    public MediaType contentType() {
+        return MediaType.parseMediaType(contentType(content.contentType()));
+    }
+
+    /**
+     * The given content type when it is one profile images are served as,
+     * {@code application/octet-stream} otherwise.
+     */
+    static String contentType(String contentType) {
+        return contentType != null && CONTENT_TYPES.contains(contentType.toLowerCase(Locale.ROOT))
+                ? contentType
+                : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+}
@@ -0,0 +1,54 @@
+package dev.germane.customer;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * S3 keys of profile images. Uploaded images live under the customer,
+ * {@code profile-images/{customerId}/{profileImageId}}, while deduplicated
+ * ones are addressed by the SHA-256 of their content and shared by every
+ * customer who uploaded the same bytes, {@code profile-images/sha256/{hash}}.
+ * Thumbnails sit next to their original with a {@code _{size}} suffix.
+ */
+final class ProfileImageKeys {
+
+    static final String PREFIX = "profile-images/";
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern KEY = Pattern.compile(
+            Pattern.quote(PREFIX) + "(sha256|\\d+)/([^/_]+)(?:_\\d+)?");
+
+    private ProfileImageKeys() {
+    }
+
+    static boolean isContentAddressed(String profileImageId) {
+        return CONTENT_HASH.matcher(profileImageId).matches();
+    }
+
+    static String original(Long customerId, String profileImageId) {
+        return isContentAddressed(profileImageId)
+                ? "profile-images/sha256/%s".formatted(profileImageId)
+                : "profile-images/%s/%s".formatted(customerId, profileImageId);
+    }
+
+    static String thumbnail(Long customerId, String profileImageId, int size) {
+        return "%s_%d".formatted(original(customerId, profileImageId), size);
+    }
+
+    /**
+     * The image id an original or thumbnail key belongs to, or null when the
+     * key is not laid out like a profile image.
+     */
+    static String profileImageId(String key) {
+        Matcher matcher = KEY.matcher(key);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String owner = matcher.group(1);
+        String profileImageId = matcher.group(2);
+        if (owner.equals("sha256") != isContentAddressed(profileImageId)) {
+            return null;
+        }
+        return profileImageId;
+    }
+}
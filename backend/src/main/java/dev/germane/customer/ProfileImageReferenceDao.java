@@ -0,0 +1,28 @@
+package dev.germane.customer;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reference counts of content addressed profile images. Counts are kept
+ * up to date by a trigger on {@code customer.profile_image_id}; an image is
+ * only counted once its row exists.
+ */
+public interface ProfileImageReferenceDao {
+
+    /**
+     * Creates the row for the image if missing and marks it as in use now,
+     * so an unreferenced image about to be reused is not cleaned up under
+     * the uploader.
+     */
+    void touch(String contentHash);
+
+    /**
+     * Removes the rows of the given images that no customer points at and
+     * that were not touched since {@code touchedBefore}, and returns their
+     * hashes. Images without a row are treated as unreferenced. Must run in
+     * the transaction that deletes the objects, so that a concurrent
+     * {@link #touch} waits until they are gone and uploads the image again.
+     */
+    List<String> deleteUnreferenced(List<String> contentHashes, Instant touchedBefore);
+}
@@ -0,0 +1,66 @@
+package dev.germane.customer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public class ProfileImageReferenceJDBCDataAccessService implements ProfileImageReferenceDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProfileImageReferenceJDBCDataAccessService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void touch(String contentHash) {
+        var sql = """
+                INSERT INTO profile_image_reference(content_hash)
+                VALUES (?)
+                ON CONFLICT (content_hash) DO UPDATE SET updated_at = now()
+                """;
+        jdbcTemplate.update(sql, contentHash);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<String> deleteUnreferenced(List<String> contentHashes, Instant touchedBefore) {
+        // rows for images left without one, so they are locked like any other
+        var insertSql = """
+                INSERT INTO profile_image_reference(content_hash, updated_at)
+                VALUES (?, ?)
+                ON CONFLICT (content_hash) DO NOTHING
+                """;
+        jdbcTemplate.batchUpdate(
+                insertSql,
+                contentHashes,
+                contentHashes.size(),
+                (ps, contentHash) -> {
+                    ps.setString(1, contentHash);
+                    ps.setTimestamp(2, Timestamp.from(Instant.EPOCH));
+                });
+
+        var deleteSql = """
+                DELETE FROM profile_image_reference
+                WHERE content_hash = ANY (?)
+                AND reference_count = 0
+                AND updated_at < ?
+                RETURNING content_hash
+                """;
+        return jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(deleteSql);
+                    statement.setArray(1, connection.createArrayOf("varchar", contentHashes.toArray()));
+                    statement.setTimestamp(2, Timestamp.from(touchedBefore));
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getString("content_hash"));
+    }
+}
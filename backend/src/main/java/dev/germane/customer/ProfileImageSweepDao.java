@@ -0,0 +1,22 @@
+package dev.germane.customer;
+
+/**
+ * State of the profile image sweep shared by every instance of the service.
+ */
+public interface ProfileImageSweepDao {
+
+    /**
+     * Runs the sweep while holding a Postgres advisory lock and returns
+     * {@code true}, or returns {@code false} without running it when another
+     * instance holds the lock. The lock belongs to a connection kept for the
+     * whole run, so it is released even if this instance dies mid-sweep.
+     */
+    boolean runExclusively(Runnable sweep);
+
+    /**
+     * Where the last run stopped listing, {@code null} to start over.
+     */
+    String selectContinuationToken();
+
+    void updateContinuationToken(String continuationToken);
+}
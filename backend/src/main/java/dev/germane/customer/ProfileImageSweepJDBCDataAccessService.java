@@ -0,0 +1,64 @@
+package dev.germane.customer;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+@Repository
+public class ProfileImageSweepJDBCDataAccessService implements ProfileImageSweepDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProfileImageSweepJDBCDataAccessService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean runExclusively(Runnable sweep) {
+        var lockSql = """
+                SELECT pg_try_advisory_lock(hashtext('profile_image_sweep'))
+                """;
+        var unlockSql = """
+                SELECT pg_advisory_unlock(hashtext('profile_image_sweep'))
+                """;
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement(lockSql);
+                 ResultSet rs = lock.executeQuery()) {
+                rs.next();
+                if (!rs.getBoolean(1)) {
+                    return false;
+                }
+            }
+            try {
+                sweep.run();
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement(unlockSql)) {
+                    unlock.execute();
+                }
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    @Override
+    public String selectContinuationToken() {
+        var sql = """
+                SELECT continuation_token
+                FROM profile_image_sweep
+                """;
+        return jdbcTemplate.queryForObject(sql, String.class);
+    }
+
+    @Override
+    public void updateContinuationToken(String continuationToken) {
+        var sql = """
+                UPDATE profile_image_sweep
+                SET continuation_token = ?
+                """;
+        jdbcTemplate.update(sql, continuationToken);
+    }
+}
@@ -0,0 +1,191 @@
+package dev.germane.customer;
+
+import dev.germane.s3.S3Buckets;
+import dev.germane.s3.S3ObjectPage;
+import dev.germane.s3.S3Service;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes profile images no customer points at any more: originals and
+ * thumbnails of replaced images and those of deleted customers.
+ * <p>
+ * Each run lists up to {@code pages-per-run} pages of {@code profile-images/}
+ * and continues from where the previous run stopped, starting over once the
+ * whole prefix has been seen. The position is kept in the database and runs
+ * hold an advisory lock, so with several instances only one sweeps at a time
+ * and none starts over because it restarted. Objects younger than the grace period are kept,
+ * which covers presigned uploads that have not been completed yet and
+ * uploads whose customer row is about to be updated. S3 calls are paced to
+ * {@code requests-per-second}.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.profile-image.sweeper.enabled", havingValue = "true")
+public class ProfileImageSweeper {
+
+    static final int PAGE_SIZE = S3Service.MAX_DELETE_BATCH_SIZE;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProfileImageSweeper.class);
+
+    private final S3Service s3Service;
+    private final S3Buckets s3Buckets;
+    private final CustomerDao customerDao;
+    private final ProfileImageReferenceDao profileImageReferenceDao;
+    private final ProfileImageSweepDao profileImageSweepDao;
+    private final TransactionTemplate transactionTemplate;
+    private final int pagesPerRun;
+    private final Duration gracePeriod;
+    private final long requestIntervalNanos;
+    private final Counter scanned;
+    private final Counter deleted;
+    private final Counter failed;
+
+    private long nextRequestAt = System.nanoTime();
+
+    public ProfileImageSweeper(S3Service s3Service,
+                               S3Buckets s3Buckets,
+                               @Qualifier("jdbc") CustomerDao customerDao,
+                               ProfileImageReferenceDao profileImageReferenceDao,
+                               ProfileImageSweepDao profileImageSweepDao,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${customer.profile-image.sweeper.pages-per-run}") int pagesPerRun,
+                               @Value("${customer.profile-image.sweeper.grace-period}") Duration gracePeriod,
+                               @Value("${customer.profile-image.sweeper.requests-per-second}") int requestsPerSecond) {
+        this.s3Service = s3Service;
+        this.s3Buckets = s3Buckets;
+        this.customerDao = customerDao;
+        this.profileImageReferenceDao = profileImageReferenceDao;
+        this.profileImageSweepDao = profileImageSweepDao;
+        this.transactionTemplate = transactionTemplate;
+        this.pagesPerRun = pagesPerRun;
+        this.gracePeriod = gracePeriod;
+        this.requestIntervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        this.scanned = Counter.builder("profile.image.sweeper.objects.scanned")
+                .register(meterRegistry);
+        this.deleted = Counter.builder("profile.image.sweeper.objects.deleted")
+                .register(meterRegistry);
+        this.failed = Counter.builder("profile.image.sweeper.objects.failed")
+                .description("objects S3 refused to delete, retried on the next pass")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${customer.profile-image.sweeper.initial-delay}",
+            fixedDelayString = "${customer.profile-image.sweeper.interval}")
+    public void sweep() {
+        if (!profileImageSweepDao.runExclusively(this::sweepPages)) {
+            LOGGER.debug("another instance is sweeping profile images, skipping this run");
+        }
+    }
+
+    private void sweepPages() {
+        String continuationToken = profileImageSweepDao.selectContinuationToken();
+        try {
+            for (int page = 0; page < pagesPerRun; page++) {
+                throttle();
+                S3ObjectPage objects = s3Service.listObjects(
+                        s3Buckets.getCustomer(),
+                        ProfileImageKeys.PREFIX,
+                        continuationToken,
+                        PAGE_SIZE);
+                sweep(objects.objects());
+                // only advance once the page is done, so a failed page is retried
+                continuationToken = objects.nextContinuationToken();
+                profileImageSweepDao.updateContinuationToken(continuationToken);
+                if (continuationToken == null) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sweep(List<S3ObjectPage.S3ObjectSummary> objects) throws InterruptedException {
+        scanned.increment(objects.size());
+        Instant createdBefore = Instant.now().minus(gracePeriod);
+
+        Map<String, List<String>> uploadedKeys = new LinkedHashMap<>();
+        Map<String, List<String>> contentAddressedKeys = new LinkedHashMap<>();
+        for (S3ObjectPage.S3ObjectSummary object : objects) {
+            String profileImageId = ProfileImageKeys.profileImageId(object.key());
+            if (profileImageId == null || !object.lastModified().isBefore(createdBefore)) {
+                continue;
+            }
+            (ProfileImageKeys.isContentAddressed(profileImageId) ? contentAddressedKeys : uploadedKeys)
+                    .computeIfAbsent(profileImageId, id -> new ArrayList<>())
+                    .add(object.key());
+        }
+
+        if (!uploadedKeys.isEmpty()) {
+            Set<String> referenced = new HashSet<>(customerDao.selectReferencedProfileImageIds(
+                    List.copyOf(uploadedKeys.keySet())));
+            List<String> orphans = new ArrayList<>();
+            uploadedKeys.forEach((profileImageId, keys) -> {
+                if (!referenced.contains(profileImageId)) {
+                    orphans.addAll(keys);
+                }
+            });
+            delete(orphans);
+        }
+
+        if (!contentAddressedKeys.isEmpty()) {
+            throttle();
+            transactionTemplate.executeWithoutResult(status -> {
+                List<String> orphans = new ArrayList<>();
+                profileImageReferenceDao.deleteUnreferenced(List.copyOf(contentAddressedKeys.keySet()), createdBefore)
+                        .forEach(contentHash -> orphans.addAll(contentAddressedKeys.get(contentHash)));
+                int errors = s3Service.deleteObjects(s3Buckets.getCustomer(), orphans);
+                if (errors > 0) {
+                    // keep the rows so the next pass tries again
+                    status.setRollbackOnly();
+                }
+                record(orphans.size(), errors);
+            });
+        }
+    }
+
+    private void delete(List<String> keys) throws InterruptedException {
+        if (keys.isEmpty()) {
+            return;
+        }
+        throttle();
+        record(keys.size(), s3Service.deleteObjects(s3Buckets.getCustomer(), keys));
+    }
+
+    private void record(int requested, int errors) {
+        deleted.increment(requested - errors);
+        failed.increment(errors);
+        if (errors > 0) {
+            LOGGER.warn("failed to delete {} of {} orphaned profile image objects", errors, requested);
+        }
+    }
+
+    private void throttle() throws InterruptedException {
+        long now = System.nanoTime();
+        long wait = nextRequestAt - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        nextRequestAt = Math.max(now, nextRequestAt) + requestIntervalNanos;
+    }
+}
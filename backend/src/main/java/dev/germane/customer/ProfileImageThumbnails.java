@@ -0,0 +1,185 @@
+package dev.germane.customer;
+
+import dev.germane.s3.S3Buckets;
+import dev.germane.s3.S3ObjectStream;
+import dev.germane.s3.S3Service;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resizes uploaded profile images to the fixed {@link #SIZES} in the
+ * background and stores each one as a JPEG next to the original, see
+ * {@link ProfileImageKeys#thumbnail}.
+ * <p>
+ * Thumbnails are optional. Until one exists, or if its generation was
+ * dropped because the queue was full, readers fall back to the original.
+ */
+@Component
+public class ProfileImageThumbnails {
+
+    static final List<Integer> SIZES = List.of(64, 256, 1024);
+    // 160 MB as ARGB, a few bytes of compressed PNG can declare far more
+    static final long MAX_PIXELS = 40_000_000L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProfileImageThumbnails.class);
+
+    private final S3Service s3Service;
+    private final S3Buckets s3Buckets;
+    private final ThreadPoolExecutor executor;
+
+    public ProfileImageThumbnails(S3Service s3Service,
+                                  S3Buckets s3Buckets,
+                                  @Value("${customer.profile-image.thumbnail-threads}") int threads,
+                                  @Value("${customer.profile-image.thumbnail-queue-capacity}") int queueCapacity) {
+        this.s3Service = s3Service;
+        this.s3Buckets = s3Buckets;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "profile-image-thumbnails-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public void generateAsync(Long customerId, String profileImageId) {
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(customerId, profileImageId);
+                } catch (RuntimeException | IOException e) {
+                    LOGGER.warn("failed to generate thumbnails for profile image [{}] of customer [{}]",
+                            profileImageId, customerId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("thumbnail queue full, serving the original of profile image [{}] of customer [{}]",
+                    profileImageId, customerId);
+        }
+    }
+
+    void generate(Long customerId, String profileImageId) throws IOException {
+        BufferedImage original;
+        S3ObjectStream object = s3Service.getObjectStream(
+                s3Buckets.getCustomer(),
+                ProfileImageKeys.original(customerId, profileImageId),
+                null);
+        try (InputStream content = object.content();
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            original = read(input, customerId, profileImageId);
+        }
+        if (original == null) {
+            return;
+        }
+
+        for (int size : SIZES) {
+            BufferedImage thumbnail = resize(original, size);
+            ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+            ImageIO.write(thumbnail, "jpg", jpeg);
+            s3Service.putObject(
+                    s3Buckets.getCustomer(),
+                    ProfileImageKeys.thumbnail(customerId, profileImageId, size),
+                    jpeg.toByteArray(),
+                    MediaType.IMAGE_JPEG_VALUE);
+        }
+    }
+
+    /**
+     * Decodes the first image of {@code input} once its header shows it has
+     * at most {@link #MAX_PIXELS}, {@code null} when it is not an image or is
+     * larger.
+     */
+    private static BufferedImage read(ImageInputStream input,
+                                      Long customerId,
+                                      String profileImageId) throws IOException {
+        Iterator<ImageReader> readers = input == null
+                ? Collections.emptyIterator()
+                : ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            LOGGER.warn("profile image [{}] of customer [{}] is not a readable image",
+                    profileImageId, customerId);
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (pixels > MAX_PIXELS) {
+                LOGGER.warn("profile image [{}] of customer [{}] has {} pixels, above the limit of {}",
+                        profileImageId, customerId, pixels, MAX_PIXELS);
+                return null;
+            }
+            return reader.read(0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Fits the image into a {@code size} square keeping its aspect ratio,
+     * never upscaling. Halving in bilinear steps keeps the quality of a large
+     * downscale close to area averaging at a fraction of its cost.
+     */
+    static BufferedImage resize(BufferedImage image, int size) {
+        double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            // JPEG has no alpha channel, so flatten onto white
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(
+                        RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
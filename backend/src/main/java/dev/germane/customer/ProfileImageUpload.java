@@ -0,0 +1,10 @@
+package dev.germane.customer;
+
+import java.net.URI;
+import java.time.Instant;
+
+public record ProfileImageUpload(
+        String profileImageId,
+        URI uploadUrl,
+        Instant expiresAt) {
+}
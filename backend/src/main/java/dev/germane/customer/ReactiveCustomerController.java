@@ -0,0 +1,44 @@
+package dev.germane.customer;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The customer reads of {@link CustomerController} served from R2DBC, next
+ * to the blocking ones so both can be compared under the same load.
+ * <p>
+ * Spring MVC writes a {@code Flux} with a streaming media type one element
+ * at a time and only requests the next once the previous has been written,
+ * so the list streams with backpressure all the way down to the database
+ * cursor instead of being collected first.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("api/v1/reactive/customers")
+public class ReactiveCustomerController {
+
+    private final ReactiveCustomerService customerService;
+
+    public ReactiveCustomerController(ReactiveCustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CustomerDTO> getCustomers(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.getCustomers(after, limit);
+    }
+
+    @GetMapping("{customerId}")
+    public Mono<CustomerDTO> getCustomerById(@PathVariable("customerId") Long customerId) {
+        return customerService.getCustomer(customerId);
+    }
+}
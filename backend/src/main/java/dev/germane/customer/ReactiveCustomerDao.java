@@ -0,0 +1,11 @@
+package dev.germane.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCustomerDao {
+
+    Flux<Customer> selectCustomersAfter(Long customerId);
+    Flux<Customer> selectCustomersAfter(Long customerId, int limit);
+    Mono<Customer> selectCustomerById(Long customerId);
+}
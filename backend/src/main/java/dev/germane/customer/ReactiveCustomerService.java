@@ -0,0 +1,50 @@
+package dev.germane.customer;
+
+import dev.germane.exception.RequestValidationException;
+import dev.germane.exception.ResourceNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read side of the customer API on R2DBC. Nothing here blocks, so callers
+ * only hold a thread while a row is being written out.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCustomerService {
+
+    private final ReactiveCustomerDao customerDao;
+    private final CustomerDTOMapper customerDTOMapper;
+
+    public ReactiveCustomerService(ReactiveCustomerDao customerDao,
+                                   CustomerDTOMapper customerDTOMapper) {
+        this.customerDao = customerDao;
+        this.customerDTOMapper = customerDTOMapper;
+    }
+
+    /**
+     * Customers with an id above {@code after}, at most {@code limit} of
+     * them, or every remaining customer when no limit is given.
+     */
+    public Flux<CustomerDTO> getCustomers(Long after, Integer limit) {
+        if (limit != null && (limit < 1 || limit > CustomerService.MAX_PAGE_SIZE)) {
+            return Flux.error(new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE)));
+        }
+        long customerId = after == null ? 0L : after;
+        Flux<Customer> customers = limit == null
+                ? customerDao.selectCustomersAfter(customerId)
+                : customerDao.selectCustomersAfter(customerId, limit);
+        return customers.map(customerDTOMapper);
+    }
+
+    public Mono<CustomerDTO> getCustomer(Long id) {
+        return customerDao.selectCustomerById(id)
+                .map(customerDTOMapper)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                        ("customer with id [%s] not found").formatted(id)
+                )));
+    }
+}
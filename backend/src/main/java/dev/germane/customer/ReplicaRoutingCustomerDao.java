@@ -0,0 +1,143 @@
+package dev.germane.customer;
+
+import dev.germane.datasource.ReplicaRoutingDataSource;
+import dev.germane.datasource.ReplicaStickiness;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link CustomerDao} that sends the reads of the one it wraps to a replica,
+ * unless {@link ReplicaStickiness} says the caller or the customer read was
+ * just written, and records every write for it.
+ * <p>
+ * {@link #selectReferencedProfileImageIds(List)} stays on the primary: the
+ * sweeper deletes whatever it does not return, so it must see the latest
+ * references.
+ */
+class ReplicaRoutingCustomerDao implements CustomerDao {
+
+    private final CustomerDao delegate;
+    private final ReplicaStickiness stickiness;
+
+    ReplicaRoutingCustomerDao(CustomerDao delegate, ReplicaStickiness stickiness) {
+        this.delegate = delegate;
+        this.stickiness = stickiness;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return read(delegate::selectAllCustomers);
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(Long customerId, int limit) {
+        return read(() -> delegate.selectCustomersAfter(customerId, limit));
+    }
+
+    @Override
+    public List<Customer> selectCustomersBefore(Long customerId, int limit) {
+        return read(() -> delegate.selectCustomersBefore(customerId, limit));
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        read(() -> {
+            delegate.streamAllCustomers(consumer);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        return read(() -> delegate.selectCustomerById(customerId), idKey(customerId));
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        try {
+            delegate.insertCustomer(customer);
+        } finally {
+            stickiness.written(emailKey(customer.getEmail()));
+        }
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        try {
+            return delegate.insertCustomers(customers);
+        } finally {
+            stickiness.written(customers.stream()
+                    .map(customer -> emailKey(customer.getEmail()))
+                    .toArray(String[]::new));
+        }
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return read(() -> delegate.existsCustomerWithEmail(email), emailKey(email));
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long customerId) {
+        return read(() -> delegate.existsCustomerWithId(customerId), idKey(customerId));
+    }
+
+    @Override
+    public int deleteById(Long customerId) {
+        try {
+            return delegate.deleteById(customerId);
+        } finally {
+            stickiness.written(idKey(customerId));
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        try {
+            delegate.updateCustomer(customer);
+        } finally {
+            if (customer.getEmail() != null) {
+                stickiness.written(idKey(customer.getId()), emailKey(customer.getEmail()));
+            } else {
+                stickiness.written(idKey(customer.getId()));
+            }
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectUserByEmail(String email) {
+        return read(() -> delegate.selectUserByEmail(email), emailKey(email));
+    }
+
+    @Override
+    public int updateProfileImageId(Long customerId, String profileImageId) {
+        try {
+            return delegate.updateProfileImageId(customerId, profileImageId);
+        } finally {
+            stickiness.written(idKey(customerId));
+        }
+    }
+
+    @Override
+    public List<String> selectReferencedProfileImageIds(List<String> profileImageIds) {
+        return delegate.selectReferencedProfileImageIds(profileImageIds);
+    }
+
+    private <T> T read(Supplier<T> query, String... keys) {
+        if (stickiness.isSticky(keys)) {
+            return query.get();
+        }
+        return ReplicaRoutingDataSource.readOnly(query);
+    }
+
+    private static String idKey(Long customerId) {
+        return "customer:" + customerId;
+    }
+
+    private static String emailKey(String email) {
+        return "email:" + email;
+    }
+}
@@ -0,0 +1,31 @@
+package dev.germane.customer;
+
+import dev.germane.datasource.ReplicaStickiness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps every {@link CustomerDao} bean in a {@link ReplicaRoutingCustomerDao}
+ * when replicas are configured, keeping the bean names the qualifiers use.
+ */
+@Component
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+class ReplicaRoutingCustomerDaoPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<ReplicaStickiness> stickiness;
+
+    // looked up lazily, post processors are created before regular beans
+    ReplicaRoutingCustomerDaoPostProcessor(ObjectProvider<ReplicaStickiness> stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CustomerDao customerDao && !(bean instanceof ReplicaRoutingCustomerDao)) {
+            return new ReplicaRoutingCustomerDao(customerDao, stickiness.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,180 @@
+package dev.germane.customer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link CustomerDao} that times every call of the one it wraps.
+ * <p>
+ * Calls are recorded in the {@code customer.dao} timer and, for methods that
+ * return rows or a row count, the rows in the {@code customer.dao.rows}
+ * summary. Both are tagged with the method and the implementation so the
+ * JDBC and JPA services can be compared, and publish percentile histograms so
+ * the percentiles can be aggregated across instances.
+ */
+class TimedCustomerDao implements CustomerDao {
+
+    static final String TIMER = "customer.dao";
+    static final String ROWS = "customer.dao.rows";
+
+    private final CustomerDao delegate;
+    private final MeterRegistry meterRegistry;
+    private final String implementation;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    TimedCustomerDao(CustomerDao delegate, MeterRegistry meterRegistry, String implementation) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.implementation = implementation;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return record("selectAllCustomers", delegate::selectAllCustomers, List::size);
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(Long customerId, int limit) {
+        return record("selectCustomersAfter",
+                () -> delegate.selectCustomersAfter(customerId, limit), List::size);
+    }
+
+    @Override
+    public List<Customer> selectCustomersBefore(Long customerId, int limit) {
+        return record("selectCustomersBefore",
+                () -> delegate.selectCustomersBefore(customerId, limit), List::size);
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        int[] rows = new int[1];
+        record("streamAllCustomers", () -> {
+            delegate.streamAllCustomers(customer -> {
+                rows[0]++;
+                consumer.accept(customer);
+            });
+            return rows;
+        }, streamed -> streamed[0]);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long customerId) {
+        return record("selectCustomerById",
+                () -> delegate.selectCustomerById(customerId), TimedCustomerDao::rows);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        record("insertCustomer", () -> {
+            delegate.insertCustomer(customer);
+            return null;
+        }, null);
+    }
+
+    @Override
+    public int[] insertCustomers(List<Customer> customers) {
+        // batches may answer SUCCESS_NO_INFO (-2) instead of a count
+        return record("insertCustomers",
+                () -> delegate.insertCustomers(customers),
+                inserted -> Arrays.stream(inserted).map(count -> Math.max(count, 0)).sum());
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return record("existsCustomerWithEmail",
+                () -> delegate.existsCustomerWithEmail(email), null);
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long customerId) {
+        return record("existsCustomerWithId",
+                () -> delegate.existsCustomerWithId(customerId), null);
+    }
+
+    @Override
+    public int deleteById(Long customerId) {
+        return record("deleteById",
+                () -> delegate.deleteById(customerId), Integer::intValue);
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        record("updateCustomer", () -> {
+            delegate.updateCustomer(customer);
+            return null;
+        }, null);
+    }
+
+    @Override
+    public Optional<Customer> selectUserByEmail(String email) {
+        return record("selectUserByEmail",
+                () -> delegate.selectUserByEmail(email), TimedCustomerDao::rows);
+    }
+
+    @Override
+    public int updateProfileImageId(Long customerId, String profileImageId) {
+        return record("updateProfileImageId",
+                () -> delegate.updateProfileImageId(customerId, profileImageId), Integer::intValue);
+    }
+
+    @Override
+    public List<String> selectReferencedProfileImageIds(List<String> profileImageIds) {
+        return record("selectReferencedProfileImageIds",
+                () -> delegate.selectReferencedProfileImageIds(profileImageIds), List::size);
+    }
+
+    private <T> T record(String method, Supplier<T> call, ToIntFunction<T> rows) {
+        Meters methodMeters = meters.computeIfAbsent(method, this::meters);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            sample.stop(timer(method, e.getClass().getSimpleName()));
+            throw e;
+        }
+        sample.stop(methodMeters.timer());
+        if (rows != null) {
+            methodMeters.rows().record(rows.applyAsInt(result));
+        }
+        return result;
+    }
+
+    private Meters meters(String method) {
+        return new Meters(
+                timer(method, "none"),
+                DistributionSummary.builder(ROWS)
+                        .description("rows returned or affected by customer DAO calls")
+                        .tag("implementation", implementation)
+                        .tag("method", method)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    private Timer timer(String method, String exception) {
+        return Timer.builder(TIMER)
+                .description("customer DAO calls")
+                .tag("implementation", implementation)
+                .tag("method", method)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static int rows(Optional<Customer> customer) {
+        return customer.isPresent() ? 1 : 0;
+    }
+
+    private record Meters(Timer timer, DistributionSummary rows) {
+    }
+}
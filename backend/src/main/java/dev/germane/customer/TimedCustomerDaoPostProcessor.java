@@ -0,0 +1,30 @@
+package dev.germane.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps every {@link CustomerDao} bean in a {@link TimedCustomerDao} tagged
+ * with its bean name, so {@code @Qualifier("jdbc")} and {@code @Qualifier("jpa")}
+ * keep resolving and callers get the metrics without changes.
+ */
+@Component
+class TimedCustomerDaoPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    // looked up lazily, post processors are created before the registry
+    TimedCustomerDaoPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CustomerDao customerDao && !(bean instanceof TimedCustomerDao)) {
+            return new TimedCustomerDao(customerDao, meterRegistry.getObject(), beanName);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,75 @@
+package dev.germane.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured pool with a {@link ReplicaRoutingDataSource}
+ * over a primary pool, configured by {@code spring.datasource} as before, and
+ * one pool per replica URL. Replica pools copy the primary's Hikari settings
+ * and credentials, streaming replicas share the roles of their primary, but
+ * give up on a connection sooner: a read waiting on a replica that is down
+ * would rather fail over to the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${datasource.replicas.urls}") String[] urls,
+            @Value("${datasource.replicas.maximum-pool-size}") int maximumPoolSize,
+            @Value("${datasource.replicas.connection-timeout}") Duration connectionTimeout) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            String name = "replica-" + (i + 1);
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName(name);
+            config.setJdbcUrl(urls[i]);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setReadOnly(true);
+            // start even with a replica down, it is marked down on first use
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaRoutingDataSource.Replica(name, new HikariDataSource(config)));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    public ReplicaHealthCheck replicaHealthCheck(
+            ReplicaRoutingDataSource dataSource,
+            @Value("${datasource.replicas.read-your-writes-window}") Duration window) {
+        return new ReplicaHealthCheck(dataSource, window);
+    }
+
+    @Bean
+    public ReplicaStickiness replicaStickiness(
+            @Value("${datasource.replicas.read-your-writes-window}") Duration window) {
+        return new ReplicaStickiness(window);
+    }
+}
@@ -0,0 +1,64 @@
+package dev.germane.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Marks a replica down while it cannot be queried, is no longer replaying
+ * WAL, for instance after being promoted, or is further behind the primary
+ * than {@code maxLag}, and up again once none of these hold. The lag is the
+ * age of the last transaction replayed, {@code now() - pg_last_xact_replay_timestamp()},
+ * and counts as zero once everything received has been replayed, so it does
+ * not grow while nothing is written. Reads stop following writes to the
+ * primary after the read-your-writes window, so that is the lag tolerated.
+ */
+public class ReplicaHealthCheck {
+
+    private final ReplicaRoutingDataSource dataSource;
+    private final Duration maxLag;
+
+    public ReplicaHealthCheck(ReplicaRoutingDataSource dataSource, Duration maxLag) {
+        this.dataSource = dataSource;
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(
+            initialDelayString = "${datasource.replicas.health-check-interval}",
+            fixedDelayString = "${datasource.replicas.health-check-interval}")
+    public void check() {
+        for (ReplicaRoutingDataSource.Replica replica : dataSource.getReplicas()) {
+            check(replica);
+        }
+    }
+
+    private void check(ReplicaRoutingDataSource.Replica replica) {
+        var sql = """
+                SELECT pg_is_in_recovery(),
+                       CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                            ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                       END::bigint
+                """;
+        try (Connection connection = replica.dataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            if (!rs.getBoolean(1)) {
+                replica.markDown("not in recovery");
+                return;
+            }
+            Duration lag = Duration.ofMillis(rs.getLong(2));
+            if (lag.compareTo(maxLag) > 0) {
+                replica.markDown("%s ms behind the primary".formatted(lag.toMillis()));
+                return;
+            }
+            replica.markUp();
+        } catch (SQLException e) {
+            replica.markDown(e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package dev.germane.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out primary connections, except inside {@link #readOnly(Supplier)}
+ * where connections come from the healthy replicas in turn.
+ * <p>
+ * A replica that fails to give a connection is marked down and the primary
+ * serves the read instead, so losing a replica costs one failed connection
+ * attempt rather than failed requests. {@link ReplicaHealthCheck} marks
+ * replicas down and up again as they fail or come back.
+ * <p>
+ * The routing is decided when a connection is taken: inside a transaction
+ * the connection bound at its start serves every statement, and a read-only
+ * call made there stays on that connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    /**
+     * Runs {@code query} with connections taken from a replica.
+     */
+    public static <T> T readOnly(Supplier<T> query) {
+        Boolean outer = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            if (outer == null) {
+                READ_ONLY.remove();
+            } else {
+                READ_ONLY.set(outer);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (READ_ONLY.get() != null) {
+            Replica replica = nextHealthyReplica();
+            if (replica != null) {
+                try {
+                    return replica.dataSource().getConnection();
+                } catch (SQLException e) {
+                    replica.markDown(e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    DataSource getPrimary() {
+        return primary;
+    }
+
+    List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            close(replica.dataSource());
+        }
+        close(primary);
+    }
+
+    private static void close(DataSource dataSource) throws Exception {
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public DataSource dataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy.get();
+        }
+
+        void markDown(Exception cause) {
+            if (healthy.compareAndSet(true, false)) {
+                LOGGER.warn("Replica {} marked down, reads go to the primary until it recovers", name, cause);
+            }
+        }
+
+        void markDown(String reason) {
+            if (healthy.compareAndSet(true, false)) {
+                LOGGER.warn("Replica {} marked down: {}", name, reason);
+            }
+        }
+
+        void markUp() {
+            if (healthy.compareAndSet(false, true)) {
+                LOGGER.info("Replica {} is back up", name);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.germane.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes for reads served by replicas. After a write, reads go to
+ * the primary for the rest of the request, and for {@code window} when made
+ * by the same token subject or about one of the keys the write touched, such
+ * as the customer id or email. {@link ReplicaHealthCheck} takes replicas
+ * further behind than the window out of rotation.
+ * <p>
+ * Writes are only remembered by the instance that made them. Behind a load
+ * balancer a read landing on another instance within the window may still be
+ * served by a replica that has not replayed the write yet, so this holds for
+ * a single instance, or with sticky sessions.
+ */
+public class ReplicaStickiness {
+
+    private static final int MAX_KEYS = 100_000;
+    private static final String REQUEST_ATTRIBUTE = ReplicaStickiness.class.getName() + ".WRITTEN";
+
+    private final Cache<String, Boolean> written;
+
+    public ReplicaStickiness(Duration window) {
+        this.written = Caffeine.newBuilder()
+                .maximumSize(MAX_KEYS)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void written(String... keys) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+        String subject = subject();
+        if (subject != null) {
+            written.put(subjectKey(subject), Boolean.TRUE);
+        }
+        for (String key : keys) {
+            written.put(key, Boolean.TRUE);
+        }
+    }
+
+    public boolean isSticky(String... keys) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        String subject = subject();
+        if (subject != null && written.getIfPresent(subjectKey(subject)) != null) {
+            return true;
+        }
+        for (String key : keys) {
+            if (written.getIfPresent(key) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String subject() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static String subjectKey(String subject) {
+        return "subject:" + subject;
+    }
+}
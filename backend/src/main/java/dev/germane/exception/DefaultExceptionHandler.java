@@ -2,6 +2,7 @@ package dev.germane.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -68,4 +69,35 @@ public class DefaultExceptionHandler {
         return new ResponseEntity<>(apiError, UNAUTHORIZED);
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiError> handleException(ServiceOverloadedException e,
+                                                    HttpServletRequest request){
+        ApiError apiError = new ApiError(
+                request.getRequestURI(),
+                e.getMessage(),
+                SERVICE_UNAVAILABLE.value(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(apiError);
+    }
+
+    @ExceptionHandler(RangeNotSatisfiableException.class)
+    public ResponseEntity<ApiError> handleException(RangeNotSatisfiableException e,
+                                                    HttpServletRequest request){
+        ApiError apiError = new ApiError(
+                request.getRequestURI(),
+                e.getMessage(),
+                REQUESTED_RANGE_NOT_SATISFIABLE.value(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity.status(REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + e.getObjectSize())
+                .body(apiError);
+    }
+
 }
@@ -0,0 +1,19 @@
+package dev.germane.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    private final long objectSize;
+
+    public RangeNotSatisfiableException(String message, long objectSize) {
+        super(message);
+        this.objectSize = objectSize;
+    }
+
+    public long getObjectSize() {
+        return objectSize;
+    }
+}
@@ -5,9 +5,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -21,10 +23,17 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
     private final JWTUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final SubjectStatusCache subjectStatusCache;
+    private final boolean statelessPrincipal;
 
-    public JWTAuthenticationFilter(JWTUtil jwtUtil, CustomerUserDetailsService userDetailsService) {
+    public JWTAuthenticationFilter(JWTUtil jwtUtil,
+                                   CustomerUserDetailsService userDetailsService,
+                                   SubjectStatusCache subjectStatusCache,
+                                   @Value("${jwt.stateless-principal}") boolean statelessPrincipal) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.subjectStatusCache = subjectStatusCache;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -40,12 +49,17 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String jwt = authHeader.substring(7);
-        String subject = jwtUtil.getSubject(jwt);
+        VerifiedToken token = jwtUtil.verify(jwt);
+        String subject = token.subject();
 
         if (subject != null &&
                 SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
-            if (jwtUtil.isTokenValid(jwt, userDetails.getUsername())) {
+            UserDetails userDetails = statelessPrincipal
+                    ? loadUserFromToken(token)
+                    : userDetailsService.loadUserByUsername(subject);
+            if (userDetails != null
+                    && subject.equals(userDetails.getUsername())
+                    && !token.isExpired()) {
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -56,7 +70,22 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
                         new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
-            filterChain.doFilter(request, response);
         }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Builds the principal from the verified claims alone. The roles come from
+     * the token's scopes; the subject is only checked against the database
+     * once per {@link SubjectStatusCache} TTL to catch deleted accounts.
+     */
+    private UserDetails loadUserFromToken(VerifiedToken token) {
+        if (!subjectStatusCache.isActive(token.subject())) {
+            return null;
+        }
+        return User.withUsername(token.subject())
+                .password("")
+                .authorities(token.scopes().toArray(String[]::new))
+                .build();
     }
 }
@@ -1,9 +1,11 @@
 package dev.germane.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
@@ -21,6 +23,21 @@ public class JWTUtil {
     private static final String SECRET_KEY =
             "foobar_123456789_foobar_123456789_foobar_123456789_foobar_123456789_";
 
+    private static final SecretKey SIGNING_KEY =
+            Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+
+    // parsers are immutable and thread-safe once built
+    private static final JwtParser PARSER = Jwts
+            .parser()
+            .verifyWith(SIGNING_KEY)
+            .build();
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public JWTUtil(@Value("${jwt.verified-token-cache-size}") int verifiedTokenCacheSize) {
+        this.verifiedTokenCache = new VerifiedTokenCache(verifiedTokenCacheSize);
+    }
+
     public String issueToken(String subject){
         return issueToken(subject, Map.of());
     }
@@ -47,36 +64,51 @@ public class JWTUtil {
                                 Instant.now().plus(15, DAYS)
                         )
                 )
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(SIGNING_KEY, SignatureAlgorithm.HS256)
                 .compact();
         return token;
     }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
-
+    /**
+     * Verifies the signature and expiry of the token once and returns its
+     * claims; repeated calls for the same token are served from the cache
+     * until the token expires.
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken verifiedToken = verifiedTokenCache.get(token);
+        if (verifiedToken != null) {
+            return verifiedToken;
+        }
+
+        Claims claims = PARSER.parseSignedClaims(token).getPayload();
+        verifiedToken = new VerifiedToken(
+                claims.getSubject(),
+                getScopes(claims),
+                claims.getExpiration().toInstant());
+        verifiedTokenCache.put(token, verifiedToken);
+        return verifiedToken;
     }
 
     public String getSubject(String token) {
-        return getClaims(token).getSubject();
+        return verify(token).subject();
     }
 
-    private Claims getClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public List<String> getScopes(String token) {
+        return verify(token).scopes();
     }
 
     public boolean isTokenValid(String jwt, String username) {
-        String subject = getSubject(jwt);
-        return subject.equals(username) && !isTokenExpired(jwt);
+        VerifiedToken verifiedToken = verify(jwt);
+        return verifiedToken.subject().equals(username) && !verifiedToken.isExpired();
     }
 
-    private boolean isTokenExpired(String jwt) {
-        Date today = Date.from(Instant.now());
-        return getClaims(jwt).getExpiration().before(today);
+    private static List<String> getScopes(Claims claims) {
+        List<?> scopes = claims.get("scopes", List.class);
+        if (scopes == null) {
+            return List.of();
+        }
+        return scopes.stream()
+                .map(String::valueOf)
+                .toList();
     }
 }
@@ -0,0 +1,45 @@
+package dev.germane.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.germane.customer.CustomerDao;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers for a short time whether the subject of a token still belongs to
+ * an existing customer, so stateless authentication only reaches the database
+ * once per subject and TTL instead of on every request.
+ */
+@Component
+public class SubjectStatusCache {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final CustomerDao customerDao;
+    private final Cache<String, Boolean> statuses;
+
+    public SubjectStatusCache(@Qualifier("jdbc") CustomerDao customerDao,
+                              @Value("${jwt.subject-status-ttl}") Duration ttl) {
+        this.customerDao = customerDao;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public boolean isActive(String subject) {
+        Boolean cached = statuses.getIfPresent(subject);
+        if (cached != null) {
+            return cached;
+        }
+
+        // looked up outside the cache so no hash bin stays locked on the query
+        boolean active = customerDao.existsCustomerWithEmail(subject);
+        statuses.put(subject, active);
+        return active;
+    }
+}
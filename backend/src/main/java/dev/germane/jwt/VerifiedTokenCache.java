@@ -0,0 +1,77 @@
+package dev.germane.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded LRU of tokens whose signature has already been checked. Entries are
+ * keyed by the SHA-256 of the token, so raw tokens are never held in memory,
+ * and are dropped once the token itself expires.
+ * <p>
+ * Every authenticated request goes through here, so the map is guarded by a
+ * {@link ReentrantLock} rather than a monitor: a virtual thread waiting for a
+ * monitor pins its carrier, one waiting for the lock unmounts.
+ */
+class VerifiedTokenCache {
+
+    private final int capacity;
+    private final Map<String, VerifiedToken> tokens;
+    private final Lock lock = new ReentrantLock();
+
+    VerifiedTokenCache(int capacity) {
+        this.capacity = capacity;
+        this.tokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > VerifiedTokenCache.this.capacity;
+            }
+        };
+    }
+
+    VerifiedToken get(String token) {
+        if (capacity <= 0) {
+            return null;
+        }
+        String key = hash(token);
+        lock.lock();
+        try {
+            VerifiedToken verifiedToken = tokens.get(key);
+            if (verifiedToken != null && verifiedToken.isExpired()) {
+                tokens.remove(key);
+                return null;
+            }
+            return verifiedToken;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(String token, VerifiedToken verifiedToken) {
+        if (capacity <= 0) {
+            return;
+        }
+        String key = hash(token);
+        lock.lock();
+        try {
+            tokens.put(key, verifiedToken);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.germane.s3;
+
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.time.Duration;
+
+/**
+ * SigV4 presigned URLs from the SDK. A presigned PUT can only sign an exact
+ * {@code Content-Length}, not a limit, so the size of uploads made through
+ * it has to be checked once they are done.
+ */
+public class AwsS3UrlPresigner implements S3UrlPresigner, AutoCloseable {
+
+    private final S3Presigner s3Presigner;
+
+    public AwsS3UrlPresigner(S3Presigner s3Presigner) {
+        this.s3Presigner = s3Presigner;
+    }
+
+    @Override
+    public S3PresignedUrl presignGetObject(String bucketName, String key, Duration ttl) {
+        PresignedGetObjectRequest presigned = s3Presigner.presignGetObject(
+                GetObjectPresignRequest.builder()
+                        .signatureDuration(ttl)
+                        .getObjectRequest(GetObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .build())
+                        .build());
+        return new S3PresignedUrl(toURI(presigned.url()), presigned.expiration());
+    }
+
+    @Override
+    public S3PresignedUrl presignPutObject(String bucketName, String key, long maxContentLength, Duration ttl) {
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(
+                PutObjectPresignRequest.builder()
+                        .signatureDuration(ttl)
+                        .putObjectRequest(PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .build())
+                        .build());
+        return new S3PresignedUrl(toURI(presigned.url()), presigned.expiration());
+    }
+
+    @Override
+    public void close() {
+        s3Presigner.close();
+    }
+
+    private static URI toURI(URL url) {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package dev.germane.s3;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.exception.SdkClientException;
@@ -9,12 +8,52 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+/**
+ * File system backed stand-in for S3. Bodies are moved between the request
+ * stream and the file through {@link FileChannel}s without buffering whole
+ * objects, and every write lands in a temporary file that is renamed over
+ * the object, so concurrent readers see either the old or the new object and
+ * never a partial one. Content types are kept in a user-defined attribute of
+ * the file where the file system supports them.
+ */
 public class FakeS3 implements S3Client {
 
-    private static final String PATH =
-            System.getProperty("user.home") +  "/.customerapi/s3";
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final String TEMP_FILE_PREFIX = ".tmp-";
+    private static final String UPLOADS_DIRECTORY = ".uploads";
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final int DEFAULT_MAX_KEYS = 1000;
+    private static final String CONTENT_TYPE_ATTRIBUTE = "content-type";
+
+    private final Path root;
+
+    public FakeS3() {
+        this(Path.of(System.getProperty("user.home"), ".customerapi", "s3"));
+    }
+
+    FakeS3(Path root) {
+        this.root = root;
+    }
 
     @Override
     public String serviceName() {
@@ -31,42 +70,421 @@ public class FakeS3 implements S3Client {
             PutObjectRequest putObjectRequest,
             RequestBody requestBody)
             throws AwsServiceException, SdkClientException {
-        InputStream inputStream = requestBody.contentStreamProvider().newStream();
+        try (InputStream inputStream = requestBody.contentStreamProvider().newStream()) {
+            writeAtomically(
+                    inputStream,
+                    objectPath(putObjectRequest.bucket(), putObjectRequest.key()),
+                    putObjectRequest.contentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PutObjectResponse.builder().build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(
+            CreateMultipartUploadRequest createMultipartUploadRequest)
+            throws AwsServiceException, SdkClientException {
+        String uploadId = UUID.randomUUID().toString();
         try {
-            byte[] bytes = IOUtils.toByteArray(inputStream);
-            FileUtils.writeByteArrayToFile(
-                    new File(
-                            buildObjectFullPath(putObjectRequest.bucket(),
-                                    putObjectRequest.key())
-                    ),
-                    bytes
-            );
-            return PutObjectResponse.builder().build();
+            Path uploadDirectory = Files.createDirectories(uploadDirectory(uploadId));
+            writeContentType(uploadDirectory, createMultipartUploadRequest.contentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return CreateMultipartUploadResponse.builder()
+                .bucket(createMultipartUploadRequest.bucket())
+                .key(createMultipartUploadRequest.key())
+                .uploadId(uploadId)
+                .build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(
+            UploadPartRequest uploadPartRequest,
+            RequestBody requestBody)
+            throws AwsServiceException, SdkClientException {
+        try (InputStream inputStream = requestBody.contentStreamProvider().newStream()) {
+            writeAtomically(
+                    inputStream,
+                    partPath(uploadPartRequest.uploadId(), uploadPartRequest.partNumber()),
+                    null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return UploadPartResponse.builder()
+                .eTag(uploadPartRequest.uploadId() + "-" + uploadPartRequest.partNumber())
+                .build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(
+            CompleteMultipartUploadRequest completeMultipartUploadRequest)
+            throws AwsServiceException, SdkClientException {
+        String uploadId = completeMultipartUploadRequest.uploadId();
+        Path object = objectPath(
+                completeMultipartUploadRequest.bucket(),
+                completeMultipartUploadRequest.key());
+        try {
+            Path temp = createTempFile(object);
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (CompletedPart part : completeMultipartUploadRequest.multipartUpload().parts()) {
+                    try (FileChannel in = FileChannel.open(
+                            partPath(uploadId, part.partNumber()), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+                writeContentType(temp, readContentType(uploadDirectory(uploadId)));
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            moveAtomically(temp, object);
+            deleteRecursively(uploadDirectory(uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return CompleteMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(
+            AbortMultipartUploadRequest abortMultipartUploadRequest)
+            throws AwsServiceException, SdkClientException {
+        try {
+            deleteRecursively(uploadDirectory(abortMultipartUploadRequest.uploadId()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public HeadObjectResponse headObject(
+            HeadObjectRequest headObjectRequest)
+            throws AwsServiceException, SdkClientException {
+        try {
+            Path object = objectPath(headObjectRequest.bucket(), headObjectRequest.key());
+            BasicFileAttributes attributes = Files.readAttributes(object, BasicFileAttributes.class);
+            return HeadObjectResponse.builder()
+                    .contentLength(attributes.size())
+                    .contentType(readContentType(object))
+                    .lastModified(attributes.lastModifiedTime().toInstant())
+                    .build();
+        } catch (NoSuchFileException e) {
+            throw noSuchKey();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(
+            DeleteObjectRequest deleteObjectRequest)
+            throws AwsServiceException, SdkClientException {
+        // like S3, deleting a missing key succeeds
+        try {
+            Files.deleteIfExists(objectPath(deleteObjectRequest.bucket(), deleteObjectRequest.key()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public DeleteObjectsResponse deleteObjects(
+            DeleteObjectsRequest deleteObjectsRequest)
+            throws AwsServiceException, SdkClientException {
+        List<DeletedObject> deleted = new ArrayList<>();
+        for (ObjectIdentifier object : deleteObjectsRequest.delete().objects()) {
+            deleteObject(DeleteObjectRequest.builder()
+                    .bucket(deleteObjectsRequest.bucket())
+                    .key(object.key())
+                    .build());
+            deleted.add(DeletedObject.builder().key(object.key()).build());
+        }
+        return DeleteObjectsResponse.builder()
+                .deleted(Boolean.TRUE.equals(deleteObjectsRequest.delete().quiet()) ? List.of() : deleted)
+                .build();
+    }
+
+    /**
+     * Lists keys in lexicographic order like S3. The continuation token is
+     * the last key of the previous page.
+     */
+    @Override
+    public ListObjectsV2Response listObjectsV2(
+            ListObjectsV2Request listObjectsV2Request)
+            throws AwsServiceException, SdkClientException {
+        Path bucket = root.resolve(listObjectsV2Request.bucket());
+        String prefix = listObjectsV2Request.prefix() == null ? "" : listObjectsV2Request.prefix();
+        String after = listObjectsV2Request.continuationToken() != null
+                ? listObjectsV2Request.continuationToken()
+                : listObjectsV2Request.startAfter();
+        int maxKeys = listObjectsV2Request.maxKeys() == null
+                ? DEFAULT_MAX_KEYS
+                : listObjectsV2Request.maxKeys();
+
+        if (!Files.isDirectory(bucket)) {
+            return ListObjectsV2Response.builder()
+                    .name(listObjectsV2Request.bucket())
+                    .prefix(prefix)
+                    .keyCount(0)
+                    .isTruncated(false)
+                    .build();
+        }
+
+        List<S3Object> objects = new ArrayList<>();
+        try {
+            collect(bucket, "", prefix, after, maxKeys + 1, objects);
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new UncheckedIOException(e);
         }
+
+        boolean truncated = objects.size() > maxKeys;
+        List<S3Object> page = truncated ? objects.subList(0, maxKeys) : objects;
+        return ListObjectsV2Response.builder()
+                .name(listObjectsV2Request.bucket())
+                .prefix(prefix)
+                .contents(page)
+                .keyCount(page.size())
+                .maxKeys(maxKeys)
+                .isTruncated(truncated)
+                .nextContinuationToken(truncated ? page.get(page.size() - 1).key() : null)
+                .build();
     }
 
     @Override
     public ResponseInputStream<GetObjectResponse> getObject(
             GetObjectRequest getObjectRequest)
             throws AwsServiceException, SdkClientException {
+        Path object = objectPath(getObjectRequest.bucket(), getObjectRequest.key());
+        FileChannel channel;
         try {
-            FileInputStream fileInputStream = new FileInputStream(
-                    buildObjectFullPath(
-                            getObjectRequest.bucket(),
-                            getObjectRequest.key())
-            );
+            channel = FileChannel.open(object, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw noSuchKey();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            long size = channel.size();
+            long start = 0;
+            long end = size - 1;
+            String range = getObjectRequest.range();
+            if (range != null) {
+                Matcher matcher = RANGE.matcher(range);
+                if (!matcher.matches()
+                        || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                    throw invalidRange();
+                }
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, size - Long.parseLong(matcher.group(2)));
+                } else {
+                    start = Long.parseLong(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Long.parseLong(matcher.group(2)));
+                    }
+                }
+                if (start >= size || start > end) {
+                    throw invalidRange();
+                }
+            }
+
+            long length = end - start + 1;
+            channel.position(start);
             return new ResponseInputStream<>(
-                    GetObjectResponse.builder().build(),
-                    fileInputStream
+                    GetObjectResponse.builder()
+                            .contentLength(length)
+                            .contentRange(range == null
+                                    ? null
+                                    : "bytes %d-%d/%d".formatted(start, end, size))
+                            .contentType(readContentType(object))
+                            .build(),
+                    BoundedInputStream.builder()
+                            .setInputStream(Channels.newInputStream(channel))
+                            .setMaxCount(length)
+                            .get()
             );
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new UncheckedIOException((IOException) e);
         }
     }
 
-    private String buildObjectFullPath(String bucketName, String key) {
-        return PATH + "/" + bucketName + "/" + key;
+    private static NoSuchKeyException noSuchKey() {
+        return NoSuchKeyException.builder()
+                .statusCode(404)
+                .message("The specified key does not exist.")
+                .build();
+    }
+
+    private static S3Exception invalidRange() {
+        return (S3Exception) S3Exception.builder()
+                .statusCode(416)
+                .message("The requested range is not satisfiable")
+                .build();
+    }
+
+    private Path objectPath(String bucketName, String key) {
+        return root.resolve(bucketName).resolve(key);
+    }
+
+    private Path uploadDirectory(String uploadId) {
+        return root.resolve(UPLOADS_DIRECTORY).resolve(uploadId);
+    }
+
+    private Path partPath(String uploadId, int partNumber) {
+        return uploadDirectory(uploadId).resolve(String.valueOf(partNumber));
+    }
+
+    /**
+     * Walks a bucket directory depth first in key order, entering only the
+     * directories that can hold keys under {@code prefix} after {@code after},
+     * and stops once {@code limit} objects are collected. A page then costs
+     * the directories on its way instead of a walk and sort of the bucket.
+     * Directories sort by their name and a slash, as their keys do.
+     */
+    private static void collect(Path directory,
+                                String keyPrefix,
+                                String prefix,
+                                String after,
+                                int limit,
+                                List<S3Object> objects) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (!name.startsWith(TEMP_FILE_PREFIX)) {
+                    boolean isDirectory = Files.isDirectory(file);
+                    entries.add(new Entry(file, keyPrefix + name + (isDirectory ? "/" : ""), isDirectory));
+                }
+            });
+        } catch (NoSuchFileException e) {
+            // deleted since its parent was listed
+            return;
+        }
+        entries.sort(Comparator.comparing(Entry::key));
+
+        for (Entry entry : entries) {
+            if (objects.size() >= limit) {
+                return;
+            }
+            String key = entry.key();
+            if (entry.directory()) {
+                boolean underPrefix = key.startsWith(prefix) || prefix.startsWith(key);
+                boolean holdsKeysAfter = after == null || after.startsWith(key) || key.compareTo(after) > 0;
+                if (underPrefix && holdsKeysAfter) {
+                    collect(entry.path(), key, prefix, after, limit, objects);
+                }
+            } else if (key.startsWith(prefix) && (after == null || key.compareTo(after) > 0)) {
+                S3Object object = toS3Object(entry.path(), key);
+                if (object != null) {
+                    objects.add(object);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code null} when the file was deleted since it was listed.
+     */
+    private static S3Object toS3Object(Path file, String key) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return S3Object.builder()
+                .key(key)
+                .size(attributes.size())
+                .lastModified(attributes.lastModifiedTime().toInstant())
+                .build();
+    }
+
+    private record Entry(Path path, String key, boolean directory) {
+    }
+
+    /**
+     * Copies the stream into a temporary file next to the target through a
+     * file channel and renames it into place.
+     */
+    private static void writeAtomically(InputStream inputStream,
+                                        Path target,
+                                        String contentType) throws IOException {
+        Path temp = createTempFile(target);
+        try (ReadableByteChannel in = Channels.newChannel(inputStream);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK_SIZE)) > 0) {
+                position += transferred;
+            }
+            writeContentType(temp, contentType);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        moveAtomically(temp, target);
+    }
+
+    private static void writeContentType(Path file, String contentType) throws IOException {
+        UserDefinedFileAttributeView attributes = userAttributes(file);
+        if (contentType != null && attributes != null) {
+            attributes.write(CONTENT_TYPE_ATTRIBUTE, StandardCharsets.UTF_8.encode(contentType));
+        }
+    }
+
+    private static String readContentType(Path file) throws IOException {
+        UserDefinedFileAttributeView attributes = userAttributes(file);
+        if (attributes == null || !attributes.list().contains(CONTENT_TYPE_ATTRIBUTE)) {
+            return null;
+        }
+        ByteBuffer contentType = ByteBuffer.allocate(attributes.size(CONTENT_TYPE_ATTRIBUTE));
+        attributes.read(CONTENT_TYPE_ATTRIBUTE, contentType);
+        return StandardCharsets.UTF_8.decode(contentType.flip()).toString();
+    }
+
+    private static UserDefinedFileAttributeView userAttributes(Path file) throws IOException {
+        return Files.getFileStore(file).supportsFileAttributeView(UserDefinedFileAttributeView.class)
+                ? Files.getFileAttributeView(file, UserDefinedFileAttributeView.class)
+                : null;
+    }
+
+    private static Path createTempFile(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        return Files.createTempFile(target.getParent(), TEMP_FILE_PREFIX, null);
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
     }
 }
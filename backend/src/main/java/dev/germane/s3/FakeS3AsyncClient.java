@@ -0,0 +1,90 @@
+package dev.germane.s3;
+
+import org.apache.commons.io.input.AutoCloseInputStream;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.utils.async.InputStreamSubscriber;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link S3AsyncClient} over {@link FakeS3}. The blocking file work runs on
+ * a private pool, the way the real client hands it to its event loop.
+ */
+public class FakeS3AsyncClient implements S3AsyncClient {
+
+    private final FakeS3 delegate;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "fake-s3-async");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FakeS3AsyncClient(FakeS3 delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String serviceName() {
+        return "fake";
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResponse> putObject(
+            PutObjectRequest putObjectRequest,
+            AsyncRequestBody requestBody)
+            throws AwsServiceException, SdkClientException {
+        long length = requestBody.contentLength()
+                .orElseGet(putObjectRequest::contentLength);
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStreamSubscriber inputStream = new InputStreamSubscriber()) {
+                requestBody.subscribe(inputStream);
+                return delegate.putObject(
+                        putObjectRequest,
+                        RequestBody.fromInputStream(inputStream, length));
+            }
+        }, executor);
+    }
+
+    @Override
+    public <ReturnT> CompletableFuture<ReturnT> getObject(
+            GetObjectRequest getObjectRequest,
+            AsyncResponseTransformer<GetObjectResponse, ReturnT> asyncResponseTransformer)
+            throws AwsServiceException, SdkClientException {
+        CompletableFuture<ReturnT> future = asyncResponseTransformer.prepare();
+        executor.execute(() -> {
+            try {
+                ResponseInputStream<GetObjectResponse> object = delegate.getObject(getObjectRequest);
+                asyncResponseTransformer.onResponse(object.response());
+                asyncResponseTransformer.onStream(AsyncRequestBody.fromInputStream(
+                        AutoCloseInputStream.builder().setInputStream(object).get(),
+                        object.response().contentLength(),
+                        executor));
+            } catch (IOException | RuntimeException e) {
+                asyncResponseTransformer.exceptionOccurred(e);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<HeadObjectResponse> headObject(
+            HeadObjectRequest headObjectRequest)
+            throws AwsServiceException, SdkClientException {
+        return CompletableFuture.supplyAsync(() -> delegate.headObject(headObjectRequest), executor);
+    }
+}
@@ -0,0 +1,116 @@
+package dev.germane.s3;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static dev.germane.s3.FakeS3Presigner.EXPIRES_PARAM;
+import static dev.germane.s3.FakeS3Presigner.MAX_CONTENT_LENGTH_PARAM;
+import static dev.germane.s3.FakeS3Presigner.NO_CONTENT;
+import static dev.germane.s3.FakeS3Presigner.SIGNATURE_PARAM;
+
+/**
+ * Local stand-in for the S3 endpoint that presigned URLs point at when
+ * {@code aws.s3.mock} is on. Objects are read from and written to
+ * {@link FakeS3}. Uploads longer than the limit signed into their URL are
+ * refused before any of the body is read.
+ */
+@RestController
+@RequestMapping(FakeS3Controller.PATH)
+@ConditionalOnProperty(name = "aws.s3.mock", havingValue = "true")
+public class FakeS3Controller {
+
+    static final String PATH = "fake-s3";
+
+    private final S3Client s3;
+    private final FakeS3Presigner presigner;
+
+    public FakeS3Controller(S3Client s3, FakeS3Presigner presigner) {
+        this.s3 = s3;
+        this.presigner = presigner;
+    }
+
+    @GetMapping("{bucket}/**")
+    public ResponseEntity<StreamingResponseBody> getObject(
+            @PathVariable("bucket") String bucket,
+            @RequestParam(EXPIRES_PARAM) long expiresAt,
+            @RequestParam(SIGNATURE_PARAM) String signature,
+            HttpServletRequest request) {
+        String key = key(bucket, request);
+        if (!presigner.isValid("GET", bucket, key, expiresAt, NO_CONTENT, signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        ResponseInputStream<GetObjectResponse> object;
+        try {
+            object = s3.getObject(GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            return ResponseEntity.notFound().build();
+        }
+        String contentType = object.response().contentType();
+        return ResponseEntity.ok()
+                .contentType(contentType == null
+                        ? MediaType.APPLICATION_OCTET_STREAM
+                        : MediaType.parseMediaType(contentType))
+                .contentLength(object.response().contentLength())
+                .body(outputStream -> {
+                    try (InputStream content = object) {
+                        content.transferTo(outputStream);
+                    }
+                });
+    }
+
+    @PutMapping("{bucket}/**")
+    public ResponseEntity<Void> putObject(
+            @PathVariable("bucket") String bucket,
+            @RequestParam(EXPIRES_PARAM) long expiresAt,
+            @RequestParam(MAX_CONTENT_LENGTH_PARAM) long maxContentLength,
+            @RequestParam(SIGNATURE_PARAM) String signature,
+            HttpServletRequest request) throws IOException {
+        String key = key(bucket, request);
+        if (!presigner.isValid("PUT", bucket, key, expiresAt, maxContentLength, signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        long length = request.getContentLengthLong();
+        if (length < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+        if (length > maxContentLength) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        try (InputStream content = request.getInputStream()) {
+            s3.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentLength(length)
+                            .contentType(request.getContentType())
+                            .build(),
+                    RequestBody.fromInputStream(content, length));
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    private static String key(String bucket, HttpServletRequest request) {
+        String prefix = request.getContextPath() + "/" + PATH + "/" + bucket + "/";
+        return request.getRequestURI().substring(prefix.length());
+    }
+}
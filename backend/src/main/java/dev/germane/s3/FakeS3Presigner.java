@@ -0,0 +1,94 @@
+package dev.germane.s3;
+
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Presigns URLs that {@link FakeS3Controller} serves from the {@link FakeS3}
+ * directory, so the presigned URL mode can run without AWS. URLs carry their
+ * expiry, for uploads the largest body accepted, and an HMAC of method,
+ * bucket, key, expiry and that limit.
+ * <p>
+ * Without a base URL, URLs point at the host of the request being served.
+ */
+public class FakeS3Presigner implements S3UrlPresigner {
+
+    static final String EXPIRES_PARAM = "X-Fake-Expires";
+    static final String MAX_CONTENT_LENGTH_PARAM = "X-Fake-Max-Content-Length";
+    static final String SIGNATURE_PARAM = "X-Fake-Signature";
+    // signed in place of a limit for downloads
+    static final long NO_CONTENT = 0;
+
+    private final String baseUrl;
+    private final String secret;
+
+    public FakeS3Presigner(String baseUrl, String secret) {
+        this.baseUrl = baseUrl;
+        this.secret = secret;
+    }
+
+    @Override
+    public S3PresignedUrl presignGetObject(String bucketName, String key, Duration ttl) {
+        return presign("GET", bucketName, key, NO_CONTENT, ttl);
+    }
+
+    @Override
+    public S3PresignedUrl presignPutObject(String bucketName, String key, long maxContentLength, Duration ttl) {
+        return presign("PUT", bucketName, key, maxContentLength, ttl);
+    }
+
+    boolean isValid(String method, String bucket, String key, long expiresAt, long maxContentLength, String signature) {
+        if (Instant.now().getEpochSecond() >= expiresAt) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                sign(method, bucket, key, expiresAt, maxContentLength).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private S3PresignedUrl presign(String method, String bucket, String key, long maxContentLength, Duration ttl) {
+        Instant expiration = Instant.now().plus(ttl);
+        long expiresAt = expiration.getEpochSecond();
+        String signature = sign(method, bucket, key, expiresAt, maxContentLength);
+        String query = maxContentLength == NO_CONTENT
+                ? "%s=%d&%s=%s".formatted(EXPIRES_PARAM, expiresAt, SIGNATURE_PARAM, signature)
+                : "%s=%d&%s=%d&%s=%s".formatted(
+                        EXPIRES_PARAM, expiresAt,
+                        MAX_CONTENT_LENGTH_PARAM, maxContentLength,
+                        SIGNATURE_PARAM, signature);
+        return new S3PresignedUrl(
+                URI.create("%s/%s/%s?%s".formatted(baseUrl(), bucket, key, query)),
+                expiration);
+    }
+
+    private String baseUrl() {
+        if (baseUrl == null || baseUrl.isBlank()) {
+            return ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/" + FakeS3Controller.PATH)
+                    .toUriString();
+        }
+        return baseUrl;
+    }
+
+    private String sign(String method, String bucket, String key, long expiresAt, long maxContentLength) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] signature = mac.doFinal("%s\n%s\n%s\n%d\n%d"
+                    .formatted(method, bucket, key, expiresAt, maxContentLength)
+                    .getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package dev.germane.s3;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class S3Config {
@@ -24,4 +35,84 @@ public class S3Config {
                 .region(Region.of(awsRegion))
                 .build();
     }
+
+    /**
+     * Non-blocking client on a bounded Netty connection pool. Requests beyond
+     * {@code max-concurrency} wait for a connection instead of opening more.
+     */
+    @Bean
+    public S3AsyncClient s3AsyncClient(
+            @Value("${aws.s3.async.max-concurrency}") int maxConcurrency,
+            @Value("${aws.s3.async.max-pending-connection-acquires}") int maxPendingConnectionAcquires,
+            @Value("${aws.s3.async.connection-acquisition-timeout}") Duration connectionAcquisitionTimeout) {
+        if(mock){
+            return new FakeS3AsyncClient(new FakeS3());
+        }
+        return S3AsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)
+                        .maxPendingConnectionAcquires(maxPendingConnectionAcquires)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout))
+                .build();
+    }
+
+    /**
+     * Reads upload bodies for the async client, which only accepts a
+     * blocking {@code InputStream} when given threads to read it on. With
+     * virtual threads every upload gets its own instead of queueing for one of
+     * {@code request-body-threads}.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService s3RequestBodyExecutor(
+            @Value("${aws.s3.async.request-body-threads}") int threads,
+            @Value("${spring.threads.virtual.enabled}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("s3-request-body-", 1).factory());
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable,
+                    "s3-request-body-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.mock", havingValue = "false")
+    public AwsS3UrlPresigner s3UrlPresigner() {
+        return new AwsS3UrlPresigner(S3Presigner.builder()
+                .region(Region.of(awsRegion))
+                .build());
+    }
+
+    /**
+     * Anyone holding the signing secret can mint upload URLs, so with
+     * presigned downloads on it has to come from the environment. Otherwise
+     * only the presigned upload URLs this process hands out are signed, and a
+     * random secret that nobody else knows will do.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.mock", havingValue = "true")
+    public FakeS3Presigner fakeS3Presigner(
+            @Value("${aws.s3.mock-url}") String mockUrl,
+            @Value("${aws.s3.mock-signing-secret}") String mockSigningSecret,
+            @Value("${aws.s3.presign.enabled}") boolean presignEnabled) {
+        if (mockSigningSecret.isBlank()) {
+            if (presignEnabled) {
+                throw new IllegalStateException(
+                        "aws.s3.mock-signing-secret must be set when aws.s3.presign.enabled is on");
+            }
+            mockSigningSecret = randomSecret();
+        }
+        return new FakeS3Presigner(mockUrl, mockSigningSecret);
+    }
+
+    private static String randomSecret() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return Base64.getEncoder().encodeToString(secret);
+    }
 }
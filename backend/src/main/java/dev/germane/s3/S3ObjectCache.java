@@ -0,0 +1,80 @@
+package dev.germane.s3;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Keeps the bytes of small, hot S3 objects on the heap. The cache is bounded
+ * by the total size of the cached objects rather than their count, and
+ * objects above the per-object limit are never cached so a few large ones
+ * cannot push out many small ones.
+ * <p>
+ * Object keys embed immutable image ids, so entries only leave the cache by
+ * eviction or when the object is written or deleted through {@link S3Service}.
+ */
+@Component
+public class S3ObjectCache {
+
+    private final Cache<String, CachedObject> objects;
+    private final long maxObjectSize;
+    private final Counter bytesServed;
+
+    public S3ObjectCache(MeterRegistry meterRegistry,
+                         @Value("${aws.s3.object-cache.max-size}") DataSize maxSize,
+                         @Value("${aws.s3.object-cache.max-object-size}") DataSize maxObjectSize) {
+        this.objects = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedObject object) -> object.content().length)
+                .recordStats()
+                .build();
+        this.maxObjectSize = maxObjectSize.toBytes();
+        CaffeineCacheMetrics.monitor(meterRegistry, objects, "s3-objects");
+        Gauge.builder("s3.object.cache.bytes", objects, cache -> cache.policy()
+                        .eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0))
+                        .orElse(0L))
+                .description("Bytes held by the S3 object cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.bytesServed = Counter.builder("s3.object.cache.served")
+                .description("Bytes served from the S3 object cache instead of S3")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public CachedObject get(String bucketName, String key) {
+        CachedObject object = objects.getIfPresent(cacheKey(bucketName, key));
+        if (object != null) {
+            bytesServed.increment(object.content().length);
+        }
+        return object;
+    }
+
+    public boolean isCacheable(Long contentLength) {
+        return contentLength != null && contentLength <= maxObjectSize;
+    }
+
+    public void put(String bucketName, String key, byte[] bytes, String contentType) {
+        if (isCacheable((long) bytes.length)) {
+            objects.put(cacheKey(bucketName, key), new CachedObject(bytes, contentType));
+        }
+    }
+
+    public void invalidate(String bucketName, String key) {
+        objects.invalidate(cacheKey(bucketName, key));
+    }
+
+    private static String cacheKey(String bucketName, String key) {
+        return bucketName + "/" + key;
+    }
+
+    public record CachedObject(byte[] content, String contentType) {
+    }
+}
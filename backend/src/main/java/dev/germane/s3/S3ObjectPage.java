@@ -0,0 +1,16 @@
+package dev.germane.s3;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One page of a listing. {@code nextContinuationToken} is null on the last
+ * page.
+ */
+public record S3ObjectPage(
+        List<S3ObjectSummary> objects,
+        String nextContinuationToken) {
+
+    public record S3ObjectSummary(String key, Instant lastModified) {
+    }
+}
@@ -0,0 +1,15 @@
+package dev.germane.s3;
+
+import java.io.InputStream;
+
+/**
+ * An open S3 object body. {@code contentRange} is only set when a byte range
+ * was requested, {@code contentType} when one was stored with the object.
+ * The caller owns {@code content} and must close it.
+ */
+public record S3ObjectStream(
+        InputStream content,
+        Long contentLength,
+        String contentRange,
+        String contentType) {
+}
@@ -0,0 +1,9 @@
+package dev.germane.s3;
+
+import java.net.URI;
+import java.time.Instant;
+
+public record S3PresignedUrl(
+        URI url,
+        Instant expiresAt) {
+}
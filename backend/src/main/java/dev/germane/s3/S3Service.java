@@ -1,33 +1,194 @@
 package dev.germane.s3;
 
+import dev.germane.exception.RangeNotSatisfiableException;
+import dev.germane.exception.ResourceNotFoundException;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.TeeInputStream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 
 @Service
 public class S3Service {
 
+    public static final int MAX_DELETE_BATCH_SIZE = 1000;
+
     private final S3Client s3;
+    private final S3AsyncClient s3Async;
+    private final ExecutorService requestBodyExecutor;
+    private final S3UrlPresigner urlPresigner;
+    private final S3ObjectCache objectCache;
+    private final long multipartThreshold;
+    private final long multipartPartSize;
+    private final Duration presignTtl;
 
-    public S3Service(S3Client s3) {
+    public S3Service(S3Client s3,
+                     S3AsyncClient s3Async,
+                     @Qualifier("s3RequestBodyExecutor") ExecutorService requestBodyExecutor,
+                     S3UrlPresigner urlPresigner,
+                     S3ObjectCache objectCache,
+                     @Value("${aws.s3.multipart-threshold}") DataSize multipartThreshold,
+                     @Value("${aws.s3.multipart-part-size}") DataSize multipartPartSize,
+                     @Value("${aws.s3.presign.ttl}") Duration presignTtl) {
         this.s3 = s3;
+        this.s3Async = s3Async;
+        this.requestBodyExecutor = requestBodyExecutor;
+        this.urlPresigner = urlPresigner;
+        this.objectCache = objectCache;
+        this.multipartThreshold = multipartThreshold.toBytes();
+        this.multipartPartSize = multipartPartSize.toBytes();
+        this.presignTtl = presignTtl;
     }
 
-    public void putObject(String bucketName, String key, byte[] file){
+    public void putObject(String bucketName, String key, byte[] file, String contentType){
+        objectCache.invalidate(bucketName, key);
         PutObjectRequest objectRequest = PutObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
+                .contentType(contentType)
                 .build();
         s3.putObject(objectRequest, RequestBody.fromBytes(file));
     }
 
+    /**
+     * Streams {@code length} bytes from the given input to S3 without holding
+     * the object in memory. Objects larger than the multipart threshold are
+     * sent as a multipart upload, one part at a time.
+     */
+    public void putObject(String bucketName,
+                          String key,
+                          InputStream inputStream,
+                          long length,
+                          String contentType) {
+        objectCache.invalidate(bucketName, key);
+        if (length <= multipartThreshold) {
+            PutObjectRequest objectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentLength(length)
+                    .contentType(contentType)
+                    .build();
+            s3.putObject(objectRequest, RequestBody.fromInputStream(inputStream, length));
+            return;
+        }
+
+        String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .build())
+                .uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            long remaining = length;
+            for (int partNumber = 1; remaining > 0; partNumber++) {
+                long partLength = Math.min(multipartPartSize, remaining);
+                UploadPartResponse response = s3.uploadPart(
+                        UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength(partLength)
+                                .build(),
+                        RequestBody.fromInputStream(
+                                BoundedInputStream.builder()
+                                        .setInputStream(inputStream)
+                                        .setMaxCount(partLength)
+                                        .setPropagateClose(false)
+                                        .get(),
+                                partLength));
+                parts.add(CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(response.eTag())
+                        .build());
+                remaining -= partLength;
+            }
+
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder()
+                            .parts(parts)
+                            .build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sends {@code length} bytes from the given input to S3 without blocking
+     * the caller. The stream is read on the request body executor and the
+     * transfer runs on the async client as a single PUT. Objects larger than
+     * the multipart threshold go through the blocking multipart upload of
+     * {@link #putObject(String, String, InputStream, long, String)}, run on the
+     * request body executor, so a failed part is retried on its own. The
+     * caller owns the stream and may close it once the future completes.
+     */
+    public CompletableFuture<Void> putObjectAsync(String bucketName,
+                                                  String key,
+                                                  InputStream inputStream,
+                                                  long length,
+                                                  String contentType) {
+        if (length > multipartThreshold) {
+            return CompletableFuture.runAsync(
+                    () -> putObject(bucketName, key, inputStream, length, contentType),
+                    requestBodyExecutor);
+        }
+
+        objectCache.invalidate(bucketName, key);
+        PutObjectRequest objectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentLength(length)
+                .contentType(contentType)
+                .build();
+        return s3Async.putObject(
+                        objectRequest,
+                        AsyncRequestBody.fromInputStream(inputStream, length, requestBodyExecutor))
+                .thenRun(() -> objectCache.invalidate(bucketName, key));
+    }
+
     public byte[] getObject(String bucketName, String key){
+        S3ObjectCache.CachedObject cached = objectCache.get(bucketName, key);
+        if (cached != null) {
+            return cached.content();
+        }
+
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                         .bucket(bucketName)
                         .key(key)
@@ -35,9 +196,282 @@ public class S3Service {
         ResponseInputStream<GetObjectResponse> res = s3.getObject(getObjectRequest);
 
         try {
-            return res.readAllBytes();
+            byte[] bytes = res.readAllBytes();
+            objectCache.put(bucketName, key, bytes, res.response().contentType());
+            return bytes;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Opens the object for streaming, optionally limited to an HTTP
+     * {@code Range} such as {@code bytes=0-1023} that S3 applies itself.
+     * Whole small objects are served from and added to the object cache,
+     * ranged reads always go to S3.
+     */
+    public S3ObjectStream getObjectStream(String bucketName, String key, String range) {
+        if (range == null) {
+            S3ObjectCache.CachedObject cached = objectCache.get(bucketName, key);
+            if (cached != null) {
+                return cached(cached);
+            }
+        }
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range(range)
+                .build();
+        try {
+            ResponseInputStream<GetObjectResponse> res = s3.getObject(getObjectRequest);
+            if (range == null && objectCache.isCacheable(res.response().contentLength())) {
+                byte[] bytes;
+                try (res) {
+                    bytes = res.readAllBytes();
+                }
+                objectCache.put(bucketName, key, bytes, res.response().contentType());
+                return new S3ObjectStream(
+                        new ByteArrayInputStream(bytes),
+                        (long) bytes.length,
+                        null,
+                        res.response().contentType());
+            }
+            return new S3ObjectStream(
+                    res,
+                    res.response().contentLength(),
+                    res.response().contentRange(),
+                    res.response().contentType());
+        } catch (S3Exception e) {
+            if (isRangeNotSatisfiable(e)) {
+                throw rangeNotSatisfiable(bucketName, key, range);
+            }
+            throw translate(e, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Like {@link #getObjectStream}, but completes as soon as S3 has answered
+     * with the headers, without holding a thread while waiting. The body is
+     * then read from the returned stream as it arrives. A small whole object
+     * is added to the object cache once its stream has been read to the end.
+     */
+    public CompletableFuture<S3ObjectStream> getObjectStreamAsync(String bucketName,
+                                                                  String key,
+                                                                  String range) {
+        if (range == null) {
+            S3ObjectCache.CachedObject cached = objectCache.get(bucketName, key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached(cached));
+            }
+        }
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range(range)
+                .build();
+        return s3Async.getObject(getObjectRequest, AsyncResponseTransformer.<GetObjectResponse>toBlockingInputStream())
+                .handle((res, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null
+                                ? e.getCause()
+                                : e;
+                        if (cause instanceof S3Exception s3Exception && isRangeNotSatisfiable(s3Exception)) {
+                            return this.<S3ObjectStream>rangeNotSatisfiableAsync(bucketName, key, range);
+                        }
+                        throw cause instanceof S3Exception s3Exception
+                                ? translate(s3Exception, key)
+                                : new CompletionException(cause);
+                    }
+                    Long contentLength = res.response().contentLength();
+                    String contentType = res.response().contentType();
+                    InputStream content = res;
+                    if (range == null && objectCache.isCacheable(contentLength)) {
+                        content = new TeeInputStream(
+                                res,
+                                cacheOnClose(bucketName, key, contentLength, contentType),
+                                true);
+                    }
+                    return CompletableFuture.completedFuture(new S3ObjectStream(
+                            content,
+                            contentLength,
+                            res.response().contentRange(),
+                            contentType));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    public boolean objectExists(String bucketName, String key) {
+        try {
+            s3.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Size of the object in bytes, empty when there is none.
+     */
+    public OptionalLong objectSize(String bucketName, String key) {
+        try {
+            return OptionalLong.of(s3.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build()).contentLength());
+        } catch (NoSuchKeyException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    public CompletableFuture<Boolean> objectExistsAsync(String bucketName, String key) {
+        return s3Async.headObject(HeadObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .build())
+                .handle((response, e) -> {
+                    if (e == null) {
+                        return true;
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null
+                            ? e.getCause()
+                            : e;
+                    if (cause instanceof NoSuchKeyException) {
+                        return false;
+                    }
+                    throw e instanceof CompletionException completionException
+                            ? completionException
+                            : new CompletionException(e);
+                });
+    }
+
+    public S3ObjectPage listObjects(String bucketName,
+                                    String prefix,
+                                    String continuationToken,
+                                    int maxKeys) {
+        ListObjectsV2Response response = s3.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .continuationToken(continuationToken)
+                .maxKeys(maxKeys)
+                .build());
+        return new S3ObjectPage(
+                response.contents().stream()
+                        .map(object -> new S3ObjectPage.S3ObjectSummary(object.key(), object.lastModified()))
+                        .toList(),
+                response.isTruncated() ? response.nextContinuationToken() : null);
+    }
+
+    /**
+     * Deletes up to 1000 keys in one request, the most S3 accepts. Returns
+     * the number of keys S3 could not delete.
+     */
+    public int deleteObjects(String bucketName, List<String> keys) {
+        if (keys.size() > MAX_DELETE_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                    "cannot delete more than %s objects at once".formatted(MAX_DELETE_BATCH_SIZE));
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        keys.forEach(key -> objectCache.invalidate(bucketName, key));
+        DeleteObjectsResponse response = s3.deleteObjects(DeleteObjectsRequest.builder()
+                .bucket(bucketName)
+                .delete(Delete.builder()
+                        .objects(keys.stream()
+                                .map(key -> ObjectIdentifier.builder().key(key).build())
+                                .toList())
+                        .quiet(true)
+                        .build())
+                .build());
+        return response.errors().size();
+    }
+
+    public S3PresignedUrl presignGetObject(String bucketName, String key) {
+        return urlPresigner.presignGetObject(bucketName, key, presignTtl);
+    }
+
+    /**
+     * Not every presigner can sign the limit, check the uploaded size with
+     * {@link #objectSize} as well.
+     */
+    public S3PresignedUrl presignPutObject(String bucketName, String key, long maxContentLength) {
+        return urlPresigner.presignPutObject(bucketName, key, maxContentLength, presignTtl);
+    }
+
+    /**
+     * Collects the bytes of an object being streamed and caches them on close
+     * if all of them were read.
+     */
+    private OutputStream cacheOnClose(String bucketName, String key, long contentLength, String contentType) {
+        return new ByteArrayOutputStream((int) contentLength) {
+            @Override
+            public void close() {
+                if (size() == contentLength) {
+                    objectCache.put(bucketName, key, toByteArray(), contentType);
+                }
+            }
+        };
+    }
+
+    private static S3ObjectStream cached(S3ObjectCache.CachedObject cached) {
+        return new S3ObjectStream(
+                new ByteArrayInputStream(cached.content()),
+                (long) cached.content().length,
+                null,
+                cached.contentType());
+    }
+
+    private static boolean isRangeNotSatisfiable(S3Exception e) {
+        return e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value();
+    }
+
+    /**
+     * S3 does not say how large the object is when it rejects a range, but
+     * the 416 has to, so clients can ask again for a range that fits.
+     */
+    private RuntimeException rangeNotSatisfiable(String bucketName, String key, String range) {
+        OptionalLong size = objectSize(bucketName, key);
+        if (size.isEmpty()) {
+            return new ResourceNotFoundException(
+                    "object [%s] not found".formatted(key));
+        }
+        return new RangeNotSatisfiableException(
+                "range [%s] not satisfiable".formatted(range),
+                size.getAsLong());
+    }
+
+    private <T> CompletableFuture<T> rangeNotSatisfiableAsync(String bucketName, String key, String range) {
+        return s3Async.headObject(HeadObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .build())
+                .handle((response, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null
+                                ? e.getCause()
+                                : e;
+                        throw cause instanceof S3Exception s3Exception
+                                ? translate(s3Exception, key)
+                                : new CompletionException(cause);
+                    }
+                    throw new RangeNotSatisfiableException(
+                            "range [%s] not satisfiable".formatted(range),
+                            response.contentLength());
+                });
+    }
+
+    private static RuntimeException translate(S3Exception e, String key) {
+        if (e instanceof NoSuchKeyException) {
+            return new ResourceNotFoundException(
+                    "object [%s] not found".formatted(key));
+        }
+        return e;
+    }
 }
@@ -0,0 +1,20 @@
+package dev.germane.s3;
+
+import java.time.Duration;
+
+/**
+ * Presigns the object URLs {@link S3Service} hands out to clients, with
+ * {@link AwsS3UrlPresigner} against S3 and {@link FakeS3Presigner} against
+ * {@link FakeS3Controller}.
+ */
+public interface S3UrlPresigner {
+
+    S3PresignedUrl presignGetObject(String bucketName, String key, Duration ttl);
+
+    /**
+     * A URL to upload at most {@code maxContentLength} bytes to. Presigners
+     * that cannot sign a limit leave it to the caller to check the size of
+     * the uploaded object.
+     */
+    S3PresignedUrl presignPutObject(String bucketName, String key, long maxContentLength, Duration ttl);
+}
@@ -0,0 +1,108 @@
+package dev.germane.security;
+
+import dev.germane.exception.ServiceOverloadedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs every encode and match of the delegate on a dedicated bounded executor,
+ * so no more than its pool size of CPU-heavy hashes run at once however many
+ * request threads ask for one. When the executor's queue is full the caller is
+ * told to retry later instead of piling up behind it.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, BulkPasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ExecutorService executor;
+    private final Duration retryAfter;
+    private final int batchSize;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate,
+                                  ExecutorService executor,
+                                  Duration retryAfter,
+                                  int batchSize) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.retryAfter = retryAfter;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Encodes the passwords in order, submitting at most {@code batchSize} of
+     * them to the executor at a time and joining each batch before the next,
+     * so a bulk registration keeps every hashing thread busy without taking
+     * over the queue other requests share.
+     */
+    @Override
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        for (int from = 0; from < rawPasswords.size(); from += batchSize) {
+            List<Future<String>> batch = new ArrayList<>(batchSize);
+            try {
+                for (CharSequence rawPassword : rawPasswords.subList(
+                        from, Math.min(from + batchSize, rawPasswords.size()))) {
+                    batch.add(submit(() -> delegate.encode(rawPassword)));
+                }
+                for (Future<String> future : batch) {
+                    encoded.add(await(future));
+                }
+            } catch (RuntimeException e) {
+                batch.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        }
+        return encoded;
+    }
+
+    private <T> T run(Callable<T> task) {
+        return await(submit(task));
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceOverloadedException(
+                    "too many password hashes in progress, try again later",
+                    retryAfter);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("failed to hash password", e.getCause());
+        }
+    }
+}
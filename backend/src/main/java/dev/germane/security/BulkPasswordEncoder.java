@@ -0,0 +1,15 @@
+package dev.germane.security;
+
+import java.util.List;
+
+/**
+ * Encodes many passwords in one call, for callers such as bulk registration
+ * that would otherwise hash them one after the other.
+ */
+public interface BulkPasswordEncoder {
+
+    /**
+     * The encoded passwords, in the order of {@code rawPasswords}.
+     */
+    List<String> encodeAll(List<? extends CharSequence> rawPasswords);
+}
@@ -1,6 +1,8 @@
 package dev.germane.security;
 
 import dev.germane.jwt.JWTAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -23,11 +25,14 @@ public class SecurityFilterChainConfig {
     private final AuthenticationProvider authenticationProvider;
     private final JWTAuthenticationFilter jwtAuthenticationFilter;
     private final AuthenticationEntryPoint authenticationEntryPoint;
+    private final boolean s3Mock;
 
-    public SecurityFilterChainConfig(AuthenticationProvider authenticationProvider, JWTAuthenticationFilter jwtAuthenticationFilter, AuthenticationEntryPoint authenticationEntryPoint) {
+    public SecurityFilterChainConfig(AuthenticationProvider authenticationProvider, JWTAuthenticationFilter jwtAuthenticationFilter, AuthenticationEntryPoint authenticationEntryPoint,
+                                     @Value("${aws.s3.mock}") boolean s3Mock) {
         this.authenticationProvider = authenticationProvider;
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.authenticationEntryPoint = authenticationEntryPoint;
+        this.s3Mock = s3Mock;
     }
 
     @Bean
@@ -35,7 +40,15 @@ public class SecurityFilterChainConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(Customizer.withDefaults())
-                .authorizeHttpRequests(authorize -> authorize
+                .authorizeHttpRequests(authorize -> {
+                    // presigned URLs authorize themselves, and only exist with the fake S3
+                    if (s3Mock) {
+                        authorize.requestMatchers("/fake-s3/**").permitAll();
+                    }
+                    authorize
+                        // the request dispatch that started async processing was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                        .permitAll()
                         .requestMatchers(
                                 HttpMethod.POST,
                                 "/api/v1/customers",
@@ -44,7 +57,8 @@ public class SecurityFilterChainConfig {
                         .requestMatchers(
                                 HttpMethod.GET,
                                 "/test",
-                                "api/v1/customers/*/profile-image"
+                                "api/v1/customers/*/profile-image",
+                                "api/v1/customers/*/profile-image/*"
                         )
                         .permitAll()
                         .requestMatchers(
@@ -52,7 +66,8 @@ public class SecurityFilterChainConfig {
                                 "/actuator/**")
                         .permitAll()
                         .anyRequest()
-                        .authenticated())
+                        .authenticated();
+                })
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(STATELESS)
                 )
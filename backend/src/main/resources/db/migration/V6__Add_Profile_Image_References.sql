@@ -0,0 +1,36 @@
+ALTER TABLE customer
+DROP CONSTRAINT profile_image_id_unique;
+
+ALTER TABLE customer
+ALTER COLUMN profile_image_id TYPE VARCHAR(64);
+
+-- the unique constraint was the only index, the sweeper looks ids up by it
+CREATE INDEX customer_profile_image_id_idx ON customer(profile_image_id);
+
+CREATE TABLE profile_image_reference(
+    content_hash VARCHAR(64) PRIMARY KEY,
+    reference_count INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- keeps reference_count equal to the number of customers pointing at a
+-- content addressed image, whichever way the customer row changes
+CREATE FUNCTION count_profile_image_references() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        UPDATE profile_image_reference
+        SET reference_count = reference_count - 1, updated_at = now()
+        WHERE content_hash = OLD.profile_image_id;
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        UPDATE profile_image_reference
+        SET reference_count = reference_count + 1, updated_at = now()
+        WHERE content_hash = NEW.profile_image_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_profile_image_references
+AFTER INSERT OR DELETE OR UPDATE OF profile_image_id ON customer
+FOR EACH ROW EXECUTE FUNCTION count_profile_image_references();
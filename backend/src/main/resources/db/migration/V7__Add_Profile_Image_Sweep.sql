@@ -0,0 +1,8 @@
+-- where the profile image sweeper stopped listing, one row shared by every
+-- instance so a run continues where the last one on any instance stopped
+CREATE TABLE profile_image_sweep(
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    continuation_token TEXT
+);
+
+INSERT INTO profile_image_sweep DEFAULT VALUES;
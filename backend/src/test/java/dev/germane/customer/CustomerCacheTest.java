@@ -0,0 +1,72 @@
+package dev.germane.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerCacheTest {
+
+    @Mock
+    private CustomerDao customerDao;
+
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void loadsOnceAndDoesNotCacheMissingCustomers(boolean virtualThreads) {
+        // Given
+        CustomerCache underTest = customerCache(virtualThreads);
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(customerDao.selectCustomerById(1L)).thenReturn(Optional.of(customer));
+        when(customerDao.selectCustomerById(2L)).thenReturn(Optional.empty());
+
+        // When
+        Optional<CustomerDTO> first = underTest.get(1L);
+        Optional<CustomerDTO> second = underTest.get(1L);
+        Optional<CustomerDTO> missing = underTest.get(2L);
+        underTest.get(2L);
+
+        // Then
+        assertThat(first).contains(customerDTOMapper.apply(customer));
+        assertThat(second).isEqualTo(first);
+        assertThat(missing).isEmpty();
+        verify(customerDao, times(1)).selectCustomerById(1L);
+        verify(customerDao, times(2)).selectCustomerById(2L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void rethrowsLoadFailure(boolean virtualThreads) {
+        // Given
+        CustomerCache underTest = customerCache(virtualThreads);
+        when(customerDao.selectCustomerById(1L)).thenThrow(new IllegalStateException("database down"));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.get(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database down");
+    }
+
+    private CustomerCache customerCache(boolean virtualThreads) {
+        return new CustomerCache(
+                customerDao,
+                customerDTOMapper,
+                new SimpleMeterRegistry(),
+                100,
+                Duration.ofMinutes(10),
+                Duration.ofMinutes(1),
+                virtualThreads);
+    }
+}
@@ -3,12 +3,15 @@ package dev.germane.customer;
 import dev.germane.AbstractTestcontainers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
@@ -40,6 +43,117 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isNotEmpty();
     }
 
+    @Test
+    void insertCustomersSkipsTakenEmails() {
+        // Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(), takenEmail, "password", 20, Gender.MALE));
+
+        // When
+        int[] actual = underTest.insertCustomers(List.of(
+                new Customer(FAKER.name().fullName(), newEmail, "password", 20, Gender.MALE),
+                new Customer(FAKER.name().fullName(), takenEmail, "password", 21, Gender.FEMALE),
+                new Customer(FAKER.name().fullName(), newEmail, "password", 22, Gender.MALE)));
+
+        // Then
+        assertThat(actual).containsExactly(1, 0, 0);
+        assertThat(underTest.selectUserByEmail(newEmail))
+                .hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(20));
+    }
+
+    @Test
+    void selectCustomersAfter() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE);
+
+        underTest.insertCustomer(customer);
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20,
+                Gender.FEMALE));
+
+        Long id = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        // When
+        List<Customer> actual = underTest.selectCustomersAfter(id - 1, 2);
+
+        // Then
+        assertThat(actual).hasSize(2);
+        assertThat(actual.get(0).getId()).isEqualTo(id);
+        assertThat(actual.get(1).getId()).isGreaterThan(id);
+    }
+
+    @Test
+    void selectCustomersBefore() {
+        // Given
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20,
+                Gender.MALE));
+
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.FEMALE));
+
+        Long id = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        // When
+        List<Customer> actual = underTest.selectCustomersBefore(id + 1, 2);
+
+        // Then
+        assertThat(actual).hasSize(2);
+        assertThat(actual.get(0).getId()).isLessThan(id);
+        assertThat(actual.get(1).getId()).isEqualTo(id);
+    }
+
+    @Test
+    void streamAllCustomers() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE);
+        underTest.insertCustomer(customer);
+        List<Customer> actual = new ArrayList<>();
+
+        // When
+        underTest.streamAllCustomers(actual::add);
+
+        // Then
+        assertThat(actual)
+                .extracting(Customer::getEmail)
+                .contains(email);
+        assertThat(actual)
+                .extracting(Customer::getId)
+                .isSorted();
+    }
+
     @Test
     void selectCustomerById() {
         // Given
@@ -173,14 +287,50 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
                 .orElseThrow();
 
         // When
-        underTest.deleteById(id);
+        int deleted = underTest.deleteById(id);
 
         boolean actual = underTest.existsCustomerWithId(id);
 
         // Then
+        assertThat(deleted).isEqualTo(1);
         assertThat(actual).isFalse();
     }
 
+    @Test
+    void deleteByIdReturnsZeroWhenIdNotPresent() {
+        // Given
+        Long id = -1L;
+
+        // When
+        int actual = underTest.deleteById(id);
+
+        // Then
+        assertThat(actual).isZero();
+    }
+
+    @Test
+    void willThrowWhenInsertingCustomerWithTakenEmail() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE));
+
+        Customer duplicate = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 30,
+                Gender.FEMALE);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomer(duplicate))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
     @Test
     void updateCustomerName() {
         // Given
@@ -462,4 +612,27 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
                 .hasValueSatisfying(c ->
                         assertThat(c.getProfileImageId()).isEqualTo(profileImageId));
     }
-}
\ No newline at end of file
+
+    @Test
+    void selectReferencedProfileImageIds() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress()  + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE));
+        Long id = underTest.selectUserByEmail(email)
+                .map(Customer::getId)
+                .orElseThrow();
+        String referenced = UUID.randomUUID().toString();
+        String orphan = UUID.randomUUID().toString();
+        underTest.updateProfileImageId(id, referenced);
+
+        // When
+        List<String> actual = underTest.selectReferencedProfileImageIds(List.of(referenced, orphan));
+
+        // Then
+        assertThat(actual).containsExactly(referenced);
+    }
+}
@@ -1,12 +1,22 @@
 package dev.germane.customer;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class CustomerJPADataAccessServiceTest {
 
@@ -14,11 +24,13 @@ class CustomerJPADataAccessServiceTest {
     private AutoCloseable autoCloseable;
     @Mock
     private CustomerRepository customerRepository;
+    @Mock
+    private EntityManager entityManager;
 
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        underTest = new CustomerJPADataAccessService(customerRepository);
+        underTest = new CustomerJPADataAccessService(customerRepository, entityManager);
     }
 
     @AfterEach
@@ -36,6 +48,54 @@ class CustomerJPADataAccessServiceTest {
                 .findAll();
     }
 
+    @Test
+    void selectCustomersAfter() {
+        // Given
+        Long id = 10L;
+        int limit = 5;
+
+        // When
+        underTest.selectCustomersAfter(id, limit);
+
+        // Then
+        verify(customerRepository)
+                .findByIdGreaterThanOrderByIdAsc(id, Limit.of(limit));
+    }
+
+    @Test
+    void selectCustomersBefore() {
+        // Given
+        Long id = 10L;
+        int limit = 5;
+
+        // When
+        underTest.selectCustomersBefore(id, limit);
+
+        // Then
+        verify(customerRepository)
+                .findByIdLessThanOrderByIdDesc(id, Limit.of(limit));
+    }
+
+    @Test
+    void streamAllCustomers() {
+        // Given
+        Customer customer = new Customer(
+                1L,
+                "German",
+                "german@gmail.com",
+                "password", 20,
+                Gender.MALE);
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(customer));
+        List<Customer> actual = new ArrayList<>();
+
+        // When
+        underTest.streamAllCustomers(actual::add);
+
+        // Then
+        assertThat(actual).containsExactly(customer);
+        verify(entityManager).detach(customer);
+    }
+
     @Test
     void selectCustomerById() {
         // Given
@@ -62,6 +122,24 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).save(customer);
     }
 
+    @Test
+    void insertCustomersSkipsTakenEmails() {
+        // Given
+        Customer german = new Customer("German", "german@gmail.com", "password", 20, Gender.MALE);
+        Customer ana = new Customer("Ana", "ana@gmail.com", "password", 21, Gender.FEMALE);
+        Customer taken = new Customer("Luis", "luis@gmail.com", "password", 22, Gender.MALE);
+        Customer repeated = new Customer("German", "german@gmail.com", "password", 23, Gender.MALE);
+        when(customerRepository.existsCustomerByEmail(anyString())).thenReturn(false);
+        when(customerRepository.existsCustomerByEmail("luis@gmail.com")).thenReturn(true);
+
+        // When
+        int[] actual = underTest.insertCustomers(List.of(german, ana, taken, repeated));
+
+        // Then
+        assertThat(actual).containsExactly(1, 1, 0, 0);
+        verify(customerRepository).saveAll(List.of(german, ana));
+    }
+
     @Test
     void existsCustomerWithEmail() {
         // Given
@@ -91,22 +169,34 @@ class CustomerJPADataAccessServiceTest {
         underTest.deleteById(id);
 
         // Then
-        verify(customerRepository).deleteById(id);
+        verify(customerRepository).deleteCustomerById(id);
     }
 
     @Test
     void updateCustomer() {
         // Given
+        Long id = 1L;
         Customer customer = new Customer(
+                id,
                 "German",
                 "german@gmail.com",
                 "password", 20,
                 Gender.MALE);
+        when(customerRepository.findById(id)).thenReturn(Optional.of(customer));
+
+        Customer update = new Customer();
+        update.setId(id);
+        update.setName("Germani");
 
         // When
-        underTest.updateCustomer(customer);
+        underTest.updateCustomer(update);
+
         // Then
         verify(customerRepository).save(customer);
+        assertThat(customer.getName()).isEqualTo("Germani");
+        assertThat(customer.getEmail()).isEqualTo("german@gmail.com");
+        assertThat(customer.getAge()).isEqualTo(20);
+        assertThat(customer.getGender()).isEqualTo(Gender.MALE);
     }
 
     @Test
@@ -121,4 +211,16 @@ class CustomerJPADataAccessServiceTest {
         // Then
         verify(customerRepository).updateProfileImageId(customerId, profileImageId);
     }
+
+    @Test
+    void selectReferencedProfileImageIds() {
+        // Given
+        List<String> profileImageIds = List.of("a", "b");
+
+        // When
+        underTest.selectReferencedProfileImageIds(profileImageIds);
+
+        // Then
+        verify(customerRepository).findReferencedProfileImageIds(profileImageIds);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package dev.germane.customer;
+
+import dev.germane.AbstractTestcontainers;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerR2DBCDataAccessServiceTest extends AbstractTestcontainers {
+
+    private CustomerR2DBCDataAccessService underTest;
+    private CustomerJDBCDataAccessService customerDao;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.builder()
+                .option(ConnectionFactoryOptions.DRIVER, "postgresql")
+                .option(ConnectionFactoryOptions.HOST, postgreSQLContainer.getHost())
+                .option(ConnectionFactoryOptions.PORT, postgreSQLContainer.getFirstMappedPort())
+                .option(ConnectionFactoryOptions.DATABASE, postgreSQLContainer.getDatabaseName())
+                .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+                .build());
+        underTest = new CustomerR2DBCDataAccessService(connectionFactory);
+        customerDao = new CustomerJDBCDataAccessService(getJdbcTemplate(), new CustomerRowMapper());
+    }
+
+    @Test
+    void selectCustomersAfterStreamsEveryLaterCustomerInOrder() {
+        // Given
+        Long first = insertCustomer();
+        Long second = insertCustomer();
+        Long third = insertCustomer();
+
+        // When
+        List<Long> actual = underTest.selectCustomersAfter(first)
+                .map(Customer::getId)
+                .collectList()
+                .block();
+
+        // Then
+        assertThat(actual).containsSubsequence(second, third).doesNotContain(first);
+    }
+
+    @Test
+    void selectCustomersAfterWithLimit() {
+        // Given
+        Long first = insertCustomer();
+        Long second = insertCustomer();
+        insertCustomer();
+
+        // When
+        List<Long> actual = underTest.selectCustomersAfter(first, 1)
+                .map(Customer::getId)
+                .collectList()
+                .block();
+
+        // Then
+        assertThat(actual).containsExactly(second);
+    }
+
+    @Test
+    void selectCustomerById() {
+        // Given
+        Long id = insertCustomer();
+
+        // When
+        Optional<Customer> actual = underTest.selectCustomerById(id).blockOptional();
+
+        // Then
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.getId()).isEqualTo(id);
+            assertThat(c.getGender()).isEqualTo(Gender.MALE);
+            assertThat(c.getAge()).isEqualTo(20);
+        });
+    }
+
+    @Test
+    void willReturnEmptyWhenSelectCustomerById() {
+        // When
+        Optional<Customer> actual = underTest.selectCustomerById(-1L).blockOptional();
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    private Long insertCustomer() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        customerDao.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE));
+        return customerDao.selectUserByEmail(email)
+                .map(Customer::getId)
+                .orElseThrow();
+    }
+}
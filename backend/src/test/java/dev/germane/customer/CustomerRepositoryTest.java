@@ -133,4 +133,33 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
                 .hasValueSatisfying(c ->
                 assertThat(c.getProfileImageId()).isEqualTo(profileImageId));
     }
-}
\ No newline at end of file
+
+    @Test
+    void canDeleteCustomerById() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password",
+                20,
+                Gender.MALE);
+
+        underTest.save(customer);
+
+        Long id = underTest.findAll()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        // When
+        int actual = underTest.deleteCustomerById(id);
+
+        // Then
+        assertThat(actual).isEqualTo(1);
+        assertThat(underTest.existsCustomerById(id)).isFalse();
+    }
+}
@@ -4,31 +4,55 @@ import dev.germane.exception.DuplicateResourceException;
 import dev.germane.exception.RequestValidationException;
 import dev.germane.exception.ResourceNotFoundException;
 import dev.germane.s3.S3Buckets;
+import dev.germane.s3.S3ObjectStream;
+import dev.germane.s3.S3PresignedUrl;
 import dev.germane.s3.S3Service;
+import dev.germane.security.BulkPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CustomerServiceTest {
 
+    private static final long MAX_PROFILE_IMAGE_SIZE = 10 * 1024 * 1024;
+
     private CustomerService underTest;
 
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private BulkPasswordEncoder bulkPasswordEncoder;
 
     @Mock
     private S3Service s3Service;
@@ -39,25 +63,159 @@ class CustomerServiceTest {
     @Mock
     private CustomerDao customerDao;
 
+    @Mock
+    private ProfileImageThumbnails profileImageThumbnails;
+
+    @Mock
+    private ProfileImageReferenceDao profileImageReferenceDao;
+
     private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
 
     @BeforeEach
     void setUp() {
-        underTest = new CustomerService(
+        underTest = customerService(false);
+    }
+
+    private CustomerService customerService(boolean deduplicateProfileImages) {
+        CustomerCache customerCache = new CustomerCache(
+                customerDao,
+                customerDTOMapper,
+                new SimpleMeterRegistry(),
+                100,
+                Duration.ofMinutes(10),
+                Duration.ofMinutes(1),
+                false);
+        return new CustomerService(
                 customerDao,
                 passwordEncoder,
+                bulkPasswordEncoder,
                 customerDTOMapper,
                 s3Service,
-                s3Buckets);
+                s3Buckets,
+                customerCache,
+                profileImageThumbnails,
+                profileImageReferenceDao,
+                deduplicateProfileImages,
+                DataSize.ofBytes(MAX_PROFILE_IMAGE_SIZE),
+                Runnable::run);
+    }
+
+    @Test
+    void canGetFirstPageOfCustomers() {
+        // Given
+        int size = 2;
+        when(customerDao.selectCustomersAfter(0L, size + 1)).thenReturn(List.of(
+                new Customer(1L, "German", "german@gmail.com", "password", 20, Gender.MALE),
+                new Customer(2L, "Ana", "ana@gmail.com", "password", 21, Gender.FEMALE),
+                new Customer(3L, "Luis", "luis@gmail.com", "password", 22, Gender.MALE)
+        ));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(null, size);
+
+        // Then
+        assertThat(actual.content())
+                .extracting(CustomerDTO::id)
+                .containsExactly(1L, 2L);
+        assertThat(actual.previousCursor()).isNull();
+        assertThat(CustomerCursor.decode(actual.nextCursor()))
+                .isEqualTo(CustomerCursor.next(2L));
     }
 
     @Test
-    void getAllCustomers() {
+    void canGetLastPageOfCustomers() {
+        // Given
+        int size = 2;
+        String cursor = CustomerCursor.next(2L).encode();
+        when(customerDao.selectCustomersAfter(2L, size + 1)).thenReturn(List.of(
+                new Customer(3L, "Luis", "luis@gmail.com", "password", 22, Gender.MALE)
+        ));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(cursor, size);
+
+        // Then
+        assertThat(actual.content())
+                .extracting(CustomerDTO::id)
+                .containsExactly(3L);
+        assertThat(actual.nextCursor()).isNull();
+        assertThat(CustomerCursor.decode(actual.previousCursor()))
+                .isEqualTo(CustomerCursor.previous(3L));
+    }
+
+    @Test
+    void canGetPreviousPageOfCustomers() {
+        // Given
+        int size = 2;
+        String cursor = CustomerCursor.previous(4L).encode();
+        when(customerDao.selectCustomersBefore(4L, size + 1)).thenReturn(List.of(
+                new Customer(1L, "German", "german@gmail.com", "password", 20, Gender.MALE),
+                new Customer(2L, "Ana", "ana@gmail.com", "password", 21, Gender.FEMALE),
+                new Customer(3L, "Luis", "luis@gmail.com", "password", 22, Gender.MALE)
+        ));
+
         // When
-        underTest.getAllCustomers();
+        CustomerPage actual = underTest.getCustomers(cursor, size);
 
         // Then
-        verify(customerDao).selectAllCustomers();
+        assertThat(actual.content())
+                .extracting(CustomerDTO::id)
+                .containsExactly(2L, 3L);
+        assertThat(CustomerCursor.decode(actual.nextCursor()))
+                .isEqualTo(CustomerCursor.next(3L));
+        assertThat(CustomerCursor.decode(actual.previousCursor()))
+                .isEqualTo(CustomerCursor.previous(2L));
+    }
+
+    @Test
+    void willUseDefaultPageSizeWhenSizeIsNotGiven() {
+        // When
+        underTest.getCustomers(null, null);
+
+        // Then
+        verify(customerDao).selectCustomersAfter(0L, CustomerService.DEFAULT_PAGE_SIZE + 1);
+    }
+
+    @Test
+    void willThrowWhenPageSizeIsOutOfBounds() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomers(null, CustomerService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("page size must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenCursorIsInvalid() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomers("not-a-cursor", 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("invalid cursor [not-a-cursor]");
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void canExportCustomers() {
+        // Given
+        Customer customer = new Customer(
+                1L, "German", "german@gmail.com", "password", 20,
+                Gender.MALE);
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            consumer.accept(customer);
+            return null;
+        }).when(customerDao).streamAllCustomers(any());
+        List<CustomerDTO> actual = new ArrayList<>();
+
+        // When
+        underTest.exportCustomers(actual::add);
+
+        // Then
+        assertThat(actual).containsExactly(customerDTOMapper.apply(customer));
     }
 
     @Test
@@ -82,6 +240,36 @@ class CustomerServiceTest {
         verify(customerDao).selectCustomerById(id);
     }
 
+    @Test
+    void getCustomerIsServedFromCacheUntilUpdated() {
+        // Given
+        Long id = 1L;
+        Customer customer = new Customer(
+                id, "German", "german@gmail.com", "password", 20,
+                Gender.MALE);
+        Customer renamed = new Customer(
+                id, "Germán", "german@gmail.com", "password", 20,
+                Gender.MALE);
+
+        when(customerDao.selectCustomerById(id)).thenReturn(
+                Optional.of(customer),
+                Optional.of(customer),
+                Optional.of(renamed)
+        );
+
+        // When
+        underTest.getCustomer(id);
+        underTest.getCustomer(id);
+        underTest.updateCustomer(id, new CustomerUpdateRequest(
+                "Germán", null, null, null));
+        CustomerDTO actual = underTest.getCustomer(id);
+
+        // Then
+        assertThat(actual.name()).isEqualTo("Germán");
+        // one load, one read by the update, one reload after invalidation
+        verify(customerDao, times(3)).selectCustomerById(id);
+    }
+
     @Test
     void willThrowWhenGetCustomerReturnEmptyOptional() {
         // Given
@@ -103,8 +291,6 @@ class CustomerServiceTest {
         // Given
         String email = "ggrandos@gmail.com";
 
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(false);
-
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "German", email, "password", 20, Gender.MALE);
 
@@ -136,18 +322,120 @@ class CustomerServiceTest {
         // Given
         String email = "ggrandos@gmail.com";
 
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(true);
+        doThrow(new DuplicateKeyException("customer_email_unique"))
+                .when(customerDao).insertCustomer(any());
 
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "German", email, "password", 20, Gender.MALE);
 
         // When
+        // Then
         assertThatThrownBy(() -> underTest.addCustomer(request))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("Email already taken");
+    }
+
+    @Test
+    void addCustomersReportsDuplicateRows() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("German", "german@gmail.com", "password", 20, Gender.MALE),
+                new CustomerRegistrationRequest("Ana", "ana@gmail.com", "password", 21, Gender.FEMALE),
+                new CustomerRegistrationRequest("Luis", "german@gmail.com", "password", 22, Gender.MALE)
+        );
+        String passwordHash = "$2a$10$Q0kI8UwUJ7CkCfLbVHwQD.DpT4J8QyDhC6PnBn7zIzqTqfS9x8kU";
+        when(bulkPasswordEncoder.encodeAll(List.of("password", "password", "password")))
+                .thenReturn(List.of(passwordHash, passwordHash, passwordHash));
+        when(customerDao.insertCustomers(anyList())).thenReturn(new int[]{1, 1, 0});
+
+        // When
+        CustomerBulkRegistrationResponse actual = underTest.addCustomers(requests);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Customer>> customersArgumentCaptor = ArgumentCaptor
+                .forClass(List.class);
+        verify(customerDao).insertCustomers(customersArgumentCaptor.capture());
+        assertThat(customersArgumentCaptor.getValue())
+                .extracting(Customer::getEmail, Customer::getPassword)
+                .containsExactly(
+                        tuple("german@gmail.com", passwordHash),
+                        tuple("ana@gmail.com", passwordHash),
+                        tuple("german@gmail.com", passwordHash));
+
+        assertThat(actual.registered()).isEqualTo(2);
+        assertThat(actual.duplicates()).containsExactly(
+                new CustomerBulkRegistrationResponse.DuplicateCustomer(2, "german@gmail.com"));
+        assertThat(actual.invalid()).isEmpty();
+    }
+
+    @Test
+    void addCustomersReportsInvalidRowsWithoutHashingThem() {
+        // Given
+        List<CustomerRegistrationRequest> requests = Arrays.asList(
+                new CustomerRegistrationRequest("German", "german@gmail.com", null, 20, Gender.MALE),
+                new CustomerRegistrationRequest("Ana", "ana@gmail.com", "password", 21, Gender.FEMALE),
+                new CustomerRegistrationRequest("Luis", null, "password", 22, Gender.MALE),
+                new CustomerRegistrationRequest("Eva", "eva@gmail.com", "secret", null, Gender.FEMALE),
+                new CustomerRegistrationRequest("Juan", "juan@gmail.com", "secret", 23, null),
+                null,
+                new CustomerRegistrationRequest("Sofia", "sofia@gmail.com", "secret", 24, Gender.FEMALE)
+        );
+        String passwordHash = "$2a$10$Q0kI8UwUJ7CkCfLbVHwQD.DpT4J8QyDhC6PnBn7zIzqTqfS9x8kU";
+        when(bulkPasswordEncoder.encodeAll(List.of("password", "secret")))
+                .thenReturn(List.of(passwordHash, passwordHash));
+        when(customerDao.insertCustomers(anyList())).thenReturn(new int[]{1, 0});
+
+        // When
+        CustomerBulkRegistrationResponse actual = underTest.addCustomers(requests);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Customer>> customersArgumentCaptor = ArgumentCaptor
+                .forClass(List.class);
+        verify(customerDao).insertCustomers(customersArgumentCaptor.capture());
+        assertThat(customersArgumentCaptor.getValue())
+                .extracting(Customer::getEmail)
+                .containsExactly("ana@gmail.com", "sofia@gmail.com");
+
+        assertThat(actual.registered()).isEqualTo(1);
+        assertThat(actual.duplicates()).containsExactly(
+                new CustomerBulkRegistrationResponse.DuplicateCustomer(6, "sofia@gmail.com"));
+        assertThat(actual.invalid()).containsExactly(
+                new CustomerBulkRegistrationResponse.InvalidCustomer(0, "password is missing"),
+                new CustomerBulkRegistrationResponse.InvalidCustomer(2, "email is missing"),
+                new CustomerBulkRegistrationResponse.InvalidCustomer(3, "age is missing"),
+                new CustomerBulkRegistrationResponse.InvalidCustomer(4, "gender is missing"),
+                new CustomerBulkRegistrationResponse.InvalidCustomer(5, "customer is missing"));
+    }
+
+    @Test
+    void addCustomersSkipsHashingWhenEveryRowIsInvalid() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("German", "german@gmail.com", " ", 20, Gender.MALE));
+
+        // When
+        CustomerBulkRegistrationResponse actual = underTest.addCustomers(requests);
+
+        // Then
+        assertThat(actual.registered()).isZero();
+        assertThat(actual.invalid()).containsExactly(
+                new CustomerBulkRegistrationResponse.InvalidCustomer(0, "password is missing"));
+        verifyNoInteractions(bulkPasswordEncoder);
+        verify(customerDao, never()).insertCustomers(any());
+    }
 
+    @Test
+    void willThrowWhenBulkRegistrationIsEmpty() {
+        // When
         // Then
-        verify(customerDao, never()).insertCustomer(any());
+        assertThatThrownBy(() -> underTest.addCustomers(List.of()))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("bulk registration must contain between 1 and %s customers"
+                        .formatted(CustomerService.MAX_BULK_SIZE));
+
+        verify(customerDao, never()).insertCustomers(any());
     }
 
     @Test
@@ -155,7 +443,7 @@ class CustomerServiceTest {
         // Given
         Long id = 1L;
 
-        when(customerDao.existsCustomerWithId(id)).thenReturn(true);
+        when(customerDao.deleteById(id)).thenReturn(1);
         // When
         underTest.deleteCustomerById(id);
 
@@ -168,14 +456,12 @@ class CustomerServiceTest {
         // Given
         Long id = 1L;
 
-        when(customerDao.existsCustomerWithId(id)).thenReturn(false);
+        when(customerDao.deleteById(id)).thenReturn(0);
         // When
         // Then
         assertThatThrownBy(() -> underTest.deleteCustomerById(id))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Customer with id [%s] not found".formatted(id));
-
-        verify(customerDao, never()).deleteById(id);
     }
 
     @Test
@@ -192,8 +478,6 @@ class CustomerServiceTest {
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Germani",
                 newEmail, 21, Gender.FEMALE);
 
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(false);
-
         // When
         underTest.updateCustomer(id, updateRequest);
 
@@ -237,10 +521,11 @@ class CustomerServiceTest {
 
         Customer capturedCostumer = customerArgumentCaptor.getValue();
 
+        assertThat(capturedCostumer.getId()).isEqualTo(id);
         assertThat(capturedCostumer.getName()).isEqualTo(updateRequest.name());
-        assertThat(capturedCostumer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(capturedCostumer.getAge()).isEqualTo(customer.getAge());
-        assertThat(capturedCostumer.getGender()).isEqualTo(customer.getGender());
+        assertThat(capturedCostumer.getEmail()).isNull();
+        assertThat(capturedCostumer.getAge()).isNull();
+        assertThat(capturedCostumer.getGender()).isNull();
     }
 
     @Test
@@ -258,8 +543,6 @@ class CustomerServiceTest {
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null,
                 newEmail, null, null);
 
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(false);
-
         // When
         underTest.updateCustomer(id, updateRequest);
 
@@ -271,9 +554,10 @@ class CustomerServiceTest {
 
         Customer capturedCostumer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCostumer.getName()).isEqualTo(customer.getName());
+        assertThat(capturedCostumer.getId()).isEqualTo(id);
+        assertThat(capturedCostumer.getName()).isNull();
         assertThat(capturedCostumer.getEmail()).isEqualTo(updateRequest.email());
-        assertThat(capturedCostumer.getAge()).isEqualTo(customer.getAge());
+        assertThat(capturedCostumer.getAge()).isNull();
     }
 
     @Test
@@ -301,8 +585,9 @@ class CustomerServiceTest {
 
         Customer capturedCostumer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCostumer.getName()).isEqualTo(customer.getName());
-        assertThat(capturedCostumer.getEmail()).isEqualTo(customer.getEmail());
+        assertThat(capturedCostumer.getId()).isEqualTo(id);
+        assertThat(capturedCostumer.getName()).isNull();
+        assertThat(capturedCostumer.getEmail()).isNull();
         assertThat(capturedCostumer.getAge()).isEqualTo(updateRequest.age());
     }
 
@@ -331,9 +616,10 @@ class CustomerServiceTest {
 
         Customer capturedCostumer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCostumer.getName()).isEqualTo(customer.getName());
-        assertThat(capturedCostumer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(capturedCostumer.getAge()).isEqualTo(customer.getAge());
+        assertThat(capturedCostumer.getId()).isEqualTo(id);
+        assertThat(capturedCostumer.getName()).isNull();
+        assertThat(capturedCostumer.getEmail()).isNull();
+        assertThat(capturedCostumer.getAge()).isNull();
         assertThat(capturedCostumer.getGender()).isEqualTo(updateRequest.gender());
     }
 
@@ -352,15 +638,14 @@ class CustomerServiceTest {
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null,
                 newEmail, null, null);
 
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(true);
+        doThrow(new DuplicateKeyException("customer_email_unique"))
+                .when(customerDao).updateCustomer(any());
 
         // When
         // Then
         assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("Email already taken");
-
-        verify(customerDao, never()).updateCustomer(any());
     }
 
     @Test
@@ -392,20 +677,22 @@ class CustomerServiceTest {
         Customer customer = new Customer(
                 customerId, "German", "german@gmail.com", "password", 20,
                 Gender.MALE);
-        when(customerDao.existsCustomerWithId(customerId)).thenReturn(true);
+        when(customerDao.updateProfileImageId(eq(customerId), anyString())).thenReturn(1);
 
         byte[] bytes = "Hello World".getBytes();
         MultipartFile multipartFile = new MockMultipartFile(
-                "file", bytes
+                "file", "image.jpg", "image/jpeg", bytes
         );
 
         String bucket = "customer-bucket";
         when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(s3Service.putObjectAsync(eq(bucket), anyString(), any(InputStream.class), eq((long) bytes.length), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         underTest.uploadCustomerProfileImage(
                 customerId, multipartFile
-        );
+        ).join();
 
         // Then
         ArgumentCaptor<String> profileImageIdArgumentCaptor =
@@ -416,31 +703,118 @@ class CustomerServiceTest {
                 profileImageIdArgumentCaptor.capture()
         );
 
-        verify(s3Service).putObject(
-                bucket,
-                "profile-images/%s/%s".formatted(customerId, profileImageIdArgumentCaptor.getValue()),
-                bytes
+        verify(s3Service).putObjectAsync(
+                eq(bucket),
+                eq("profile-images/%s/%s".formatted(customerId, profileImageIdArgumentCaptor.getValue())),
+                any(InputStream.class),
+                eq((long) bytes.length),
+                eq("image/jpeg")
         );
+        verify(profileImageThumbnails).generateAsync(
+                customerId, profileImageIdArgumentCaptor.getValue());
+    }
+
+    @Test
+    void canUploadDeduplicatedProfileImage() {
+        // Given
+        underTest = customerService(true);
+        Long customerId = 1L;
+        String contentHash = "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+        String key = "profile-images/sha256/" + contentHash;
+        byte[] bytes = "Hello World".getBytes();
+        MultipartFile multipartFile = new MockMultipartFile("file", bytes);
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(s3Service.objectExistsAsync(bucket, key))
+                .thenReturn(CompletableFuture.completedFuture(false));
+        when(s3Service.putObjectAsync(eq(bucket), eq(key), any(InputStream.class), eq((long) bytes.length), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(customerDao.updateProfileImageId(customerId, contentHash)).thenReturn(1);
+
+        // When
+        underTest.uploadCustomerProfileImage(customerId, multipartFile).join();
+
+        // Then
+        verify(profileImageReferenceDao).touch(contentHash);
+        verify(customerDao).updateProfileImageId(customerId, contentHash);
+        verify(profileImageThumbnails).generateAsync(customerId, contentHash);
+    }
+
+    @Test
+    void skipsUploadWhenSameProfileImageIsAlreadyStored() {
+        // Given
+        underTest = customerService(true);
+        Long customerId = 1L;
+        String contentHash = "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+        MultipartFile multipartFile = new MockMultipartFile("file", "Hello World".getBytes());
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(s3Service.objectExistsAsync(bucket, "profile-images/sha256/" + contentHash))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        when(s3Service.objectExistsAsync(bucket, "profile-images/sha256/" + contentHash + "_1024"))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        when(customerDao.updateProfileImageId(customerId, contentHash)).thenReturn(1);
+
+        // When
+        underTest.uploadCustomerProfileImage(customerId, multipartFile).join();
+
+        // Then
+        verify(profileImageReferenceDao).touch(contentHash);
+        verify(s3Service, never()).putObjectAsync(any(), any(), any(), anyLong(), any());
+        verify(customerDao).updateProfileImageId(customerId, contentHash);
+        verifyNoInteractions(profileImageThumbnails);
+    }
+
+    @Test
+    void regeneratesMissingThumbnailsWhenSameProfileImageIsAlreadyStored() {
+        // Given
+        underTest = customerService(true);
+        Long customerId = 1L;
+        String contentHash = "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+        MultipartFile multipartFile = new MockMultipartFile("file", "Hello World".getBytes());
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(s3Service.objectExistsAsync(bucket, "profile-images/sha256/" + contentHash))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        when(s3Service.objectExistsAsync(bucket, "profile-images/sha256/" + contentHash + "_1024"))
+                .thenReturn(CompletableFuture.completedFuture(false));
+        when(customerDao.updateProfileImageId(customerId, contentHash)).thenReturn(1);
+
+        // When
+        underTest.uploadCustomerProfileImage(customerId, multipartFile).join();
+
+        // Then
+        verify(s3Service, never()).putObjectAsync(any(), any(), any(), anyLong(), any());
+        verify(customerDao).updateProfileImageId(customerId, contentHash);
+        verify(profileImageThumbnails).generateAsync(customerId, contentHash);
     }
 
     @Test
     void cannotUploadProfileImageWhenCustomerDoesNotExists() {
         // Given
         Long customerId = 1L;
-        when(customerDao.existsCustomerWithId(customerId)).thenReturn(false);
+        when(customerDao.updateProfileImageId(eq(customerId), anyString())).thenReturn(0);
+
+        MultipartFile multipartFile = new MockMultipartFile(
+                "file", "Hello World".getBytes()
+        );
+        when(s3Service.putObjectAsync(any(), anyString(), any(InputStream.class), anyLong(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         assertThatThrownBy(() -> underTest.uploadCustomerProfileImage(
-                customerId, mock(MultipartFile.class)))
+                customerId, multipartFile).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Customer with id [%s] not found".formatted(customerId));
 
         // Then
-        verify(customerDao).existsCustomerWithId(customerId);
+        verify(customerDao).updateProfileImageId(eq(customerId), anyString());
         verifyNoMoreInteractions(customerDao);
-        verifyNoInteractions(s3Buckets);
-        verifyNoInteractions(s3Service);
-
     }
 
     @Test
@@ -451,13 +825,8 @@ class CustomerServiceTest {
                 customerId, "German", "german@gmail.com", "password", 20,
                 Gender.MALE);
 
-        when(customerDao.existsCustomerWithId(customerId)).thenReturn(true);
-
         MultipartFile multipartFile = mock(MultipartFile.class);
-        when(multipartFile.getBytes()).thenThrow(IOException.class);
-
-        String bucket = "customer-bucket";
-        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(multipartFile.getInputStream()).thenThrow(IOException.class);
 
         // When
         assertThatThrownBy(() -> underTest.uploadCustomerProfileImage(
@@ -468,6 +837,7 @@ class CustomerServiceTest {
                 .hasRootCauseInstanceOf(IOException.class);
 
         // Then
+        verifyNoInteractions(s3Service);
         verify(customerDao, never()).updateProfileImageId(
                 any(),
                 any()
@@ -475,7 +845,109 @@ class CustomerServiceTest {
     }
 
     @Test
-    void canDownloadProfileImage() {
+    void canCreateProfileImageUpload() {
+        // Given
+        Long customerId = 1L;
+        Customer customer = new Customer(
+                customerId, "German", "german@gmail.com", "password", 20,
+                Gender.MALE);
+        when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+
+        S3PresignedUrl url = new S3PresignedUrl(
+                URI.create("http://localhost:8080/fake-s3/upload"), Instant.now());
+        when(s3Service.presignPutObject(eq(bucket), anyString(), eq(MAX_PROFILE_IMAGE_SIZE))).thenReturn(url);
+
+        // When
+        ProfileImageUpload actual = underTest.createProfileImageUpload(customerId);
+
+        // Then
+        verify(s3Service).presignPutObject(
+                bucket,
+                "profile-images/%s/%s".formatted(customerId, actual.profileImageId()),
+                MAX_PROFILE_IMAGE_SIZE);
+        assertThat(actual.uploadUrl()).isEqualTo(url.url());
+        assertThat(actual.expiresAt()).isEqualTo(url.expiresAt());
+        verify(customerDao, never()).updateProfileImageId(any(), any());
+    }
+
+    @Test
+    void canCompleteProfileImageUpload() {
+        // Given
+        Long customerId = 1L;
+        String profileImageId = UUID.randomUUID().toString();
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(s3Service.objectSize(
+                bucket,
+                "profile-images/%s/%s".formatted(customerId, profileImageId))
+        ).thenReturn(OptionalLong.of(MAX_PROFILE_IMAGE_SIZE));
+        when(customerDao.updateProfileImageId(customerId, profileImageId)).thenReturn(1);
+
+        // When
+        underTest.completeProfileImageUpload(customerId, profileImageId);
+
+        // Then
+        verify(customerDao).updateProfileImageId(customerId, profileImageId);
+        verify(profileImageThumbnails).generateAsync(customerId, profileImageId);
+    }
+
+    @Test
+    void cannotCompleteProfileImageUploadBeforeObjectIsUploaded() {
+        // Given
+        Long customerId = 1L;
+        String profileImageId = UUID.randomUUID().toString();
+
+        when(s3Buckets.getCustomer()).thenReturn("customer-bucket");
+        when(s3Service.objectSize(anyString(), anyString())).thenReturn(OptionalLong.empty());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.completeProfileImageUpload(customerId, profileImageId))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("profile image [%s] has not been uploaded".formatted(profileImageId));
+
+        verify(customerDao, never()).updateProfileImageId(any(), any());
+    }
+
+    @Test
+    void cannotCompleteProfileImageUploadAboveSizeLimit() {
+        // Given
+        Long customerId = 1L;
+        String profileImageId = UUID.randomUUID().toString();
+        String bucket = "customer-bucket";
+        String key = "profile-images/%s/%s".formatted(customerId, profileImageId);
+
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(s3Service.objectSize(bucket, key)).thenReturn(OptionalLong.of(MAX_PROFILE_IMAGE_SIZE + 1));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.completeProfileImageUpload(customerId, profileImageId))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("profile image [%s] is larger than %s bytes"
+                        .formatted(profileImageId, MAX_PROFILE_IMAGE_SIZE));
+
+        verify(s3Service).deleteObjects(bucket, List.of(key));
+        verify(customerDao, never()).updateProfileImageId(any(), any());
+    }
+
+    @Test
+    void cannotCompleteProfileImageUploadWithInvalidId() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.completeProfileImageUpload(1L, "../2/foo"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("invalid profile image id [../2/foo]");
+
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void canGetProfileImageId() {
         // Given
         Long customerId = 1L;
         String profileImageId = "profile_image_id1234";
@@ -490,20 +962,105 @@ class CustomerServiceTest {
 
         when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
 
+        // When
+        String actual = underTest.getCustomerProfileImageId(customerId);
+
+        // Then
+        assertThat(actual).isEqualTo(profileImageId);
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void canDownloadProfileImage() {
+        // Given
+        Long customerId = 1L;
+        String profileImageId = "profile_image_id1234";
+        String range = "bytes=0-5";
+
         String bucket = "customer-bucket";
         when(s3Buckets.getCustomer()).thenReturn(bucket);
 
-        byte[] expectedImage = "images".getBytes();
-        when(s3Service.getObject(
+        S3ObjectStream expectedImage = new S3ObjectStream(
+                new ByteArrayInputStream("images".getBytes()), 6L, "bytes 0-5/100", "image/jpeg");
+        when(s3Service.getObjectStreamAsync(
                 bucket,
-                "profile-images/%s/%s".formatted(customerId, profileImageId))
-        ).thenReturn(expectedImage);
+                "profile-images/%s/%s".formatted(customerId, profileImageId),
+                range)
+        ).thenReturn(CompletableFuture.completedFuture(expectedImage));
+
+        // When
+        ProfileImage actualImage = underTest.getCustomerProfileImage(
+                customerId, profileImageId, null, range).join();
+
+        // Then
+        assertThat(actualImage).isEqualTo(new ProfileImage(null, expectedImage));
+    }
+
+    @Test
+    void canDownloadProfileImageThumbnail() {
+        // Given
+        Long customerId = 1L;
+        String profileImageId = "profile_image_id1234";
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+
+        S3ObjectStream expectedImage = new S3ObjectStream(
+                new ByteArrayInputStream("thumb".getBytes()), 5L, null, "image/jpeg");
+        when(s3Service.getObjectStreamAsync(
+                bucket,
+                "profile-images/%s/%s_64".formatted(customerId, profileImageId),
+                null)
+        ).thenReturn(CompletableFuture.completedFuture(expectedImage));
 
         // When
-        byte[] actualImage = underTest.getCustomerProfileImage(customerId);
+        ProfileImage actualImage = underTest.getCustomerProfileImage(
+                customerId, profileImageId, 64, null).join();
 
         // Then
-        assertThat(actualImage).isEqualTo(expectedImage);
+        assertThat(actualImage).isEqualTo(new ProfileImage(64, expectedImage));
+    }
+
+    @Test
+    void fallsBackToOriginalWhenThumbnailIsNotGeneratedYet() {
+        // Given
+        Long customerId = 1L;
+        String profileImageId = "profile_image_id1234";
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+
+        when(s3Service.getObjectStreamAsync(
+                bucket,
+                "profile-images/%s/%s_256".formatted(customerId, profileImageId),
+                null)
+        ).thenReturn(CompletableFuture.failedFuture(
+                new CompletionException(new ResourceNotFoundException("object not found"))));
+        S3ObjectStream original = new S3ObjectStream(
+                new ByteArrayInputStream("images".getBytes()), 6L, null, "image/jpeg");
+        when(s3Service.getObjectStreamAsync(
+                bucket,
+                "profile-images/%s/%s".formatted(customerId, profileImageId),
+                null)
+        ).thenReturn(CompletableFuture.completedFuture(original));
+
+        // When
+        ProfileImage actualImage = underTest.getCustomerProfileImage(
+                customerId, profileImageId, 256, null).join();
+
+        // Then
+        assertThat(actualImage).isEqualTo(new ProfileImage(null, original));
+    }
+
+    @Test
+    void willThrowWhenProfileImageSizeIsNotSupported() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomerProfileImage(1L, "id", 100, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("profile image size must be one of [64, 256, 1024]");
+
+        verifyNoInteractions(s3Service);
     }
 
     @Test
@@ -522,7 +1079,7 @@ class CustomerServiceTest {
 
         // When
         // Then
-        assertThatThrownBy(() -> underTest.getCustomerProfileImage(customerId))
+        assertThatThrownBy(() -> underTest.getCustomerProfileImageId(customerId))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("customer with id [%s] profile image not found".formatted(customerId));
 
@@ -539,7 +1096,7 @@ class CustomerServiceTest {
 
         // When
         // Then
-        assertThatThrownBy(() -> underTest.getCustomerProfileImage(customerId))
+        assertThatThrownBy(() -> underTest.getCustomerProfileImageId(customerId))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("customer with id [%s] not found".formatted(customerId));
 
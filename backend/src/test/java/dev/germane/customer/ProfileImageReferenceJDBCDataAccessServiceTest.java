@@ -0,0 +1,123 @@
+package dev.germane.customer;
+
+import dev.germane.AbstractTestcontainers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileImageReferenceJDBCDataAccessServiceTest extends AbstractTestcontainers {
+
+    private ProfileImageReferenceJDBCDataAccessService underTest;
+    private CustomerJDBCDataAccessService customerDao;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        underTest = new ProfileImageReferenceJDBCDataAccessService(jdbcTemplate);
+        customerDao = new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper());
+        transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    }
+
+    @Test
+    void referenceCountFollowsCustomersPointingAtImage() {
+        // Given
+        String contentHash = randomContentHash();
+        String otherContentHash = randomContentHash();
+        underTest.touch(contentHash);
+        underTest.touch(otherContentHash);
+        Long first = insertCustomer();
+        Long second = insertCustomer();
+
+        // When
+        customerDao.updateProfileImageId(first, contentHash);
+        customerDao.updateProfileImageId(second, contentHash);
+
+        // Then
+        assertThat(referenceCount(contentHash)).isEqualTo(2);
+
+        // When
+        customerDao.updateProfileImageId(first, otherContentHash);
+        customerDao.deleteById(second);
+
+        // Then
+        assertThat(referenceCount(contentHash)).isZero();
+        assertThat(referenceCount(otherContentHash)).isEqualTo(1);
+    }
+
+    @Test
+    void touchKeepsExistingCount() {
+        // Given
+        String contentHash = randomContentHash();
+        underTest.touch(contentHash);
+        customerDao.updateProfileImageId(insertCustomer(), contentHash);
+
+        // When
+        underTest.touch(contentHash);
+
+        // Then
+        assertThat(referenceCount(contentHash)).isEqualTo(1);
+    }
+
+    @Test
+    void deleteUnreferencedKeepsReferencedAndRecentlyTouchedImages() {
+        // Given
+        String referenced = randomContentHash();
+        String touched = randomContentHash();
+        String unreferenced = randomContentHash();
+        String withoutRow = randomContentHash();
+        underTest.touch(referenced);
+        underTest.touch(touched);
+        underTest.touch(unreferenced);
+        customerDao.updateProfileImageId(insertCustomer(), referenced);
+        Long replaced = insertCustomer();
+        customerDao.updateProfileImageId(replaced, unreferenced);
+        customerDao.deleteById(replaced);
+        Instant touchedBefore = Instant.now().plusSeconds(60);
+
+        // When
+        List<String> actual = transactionTemplate.execute(status -> underTest.deleteUnreferenced(
+                List.of(referenced, unreferenced, withoutRow),
+                touchedBefore));
+
+        // Then
+        assertThat(actual).containsExactlyInAnyOrder(unreferenced, withoutRow);
+        assertThat(referenceCount(referenced)).isEqualTo(1);
+        List<String> recentlyTouched = transactionTemplate.execute(status -> underTest.deleteUnreferenced(
+                List.of(touched),
+                Instant.now().minusSeconds(60)));
+        assertThat(recentlyTouched).isEmpty();
+    }
+
+    private Long insertCustomer() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        customerDao.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE));
+        return customerDao.selectUserByEmail(email)
+                .map(Customer::getId)
+                .orElseThrow();
+    }
+
+    private static int referenceCount(String contentHash) {
+        return getJdbcTemplate().queryForObject(
+                "SELECT reference_count FROM profile_image_reference WHERE content_hash = ?",
+                Integer.class,
+                contentHash);
+    }
+
+    private static String randomContentHash() {
+        return (UUID.randomUUID().toString() + UUID.randomUUID()).replace("-", "");
+    }
+}
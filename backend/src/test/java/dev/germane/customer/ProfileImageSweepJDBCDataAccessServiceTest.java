@@ -0,0 +1,50 @@
+package dev.germane.customer;
+
+import dev.germane.AbstractTestcontainers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileImageSweepJDBCDataAccessServiceTest extends AbstractTestcontainers {
+
+    private ProfileImageSweepJDBCDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ProfileImageSweepJDBCDataAccessService(getJdbcTemplate());
+    }
+
+    @Test
+    void keepsContinuationToken() {
+        // When
+        underTest.updateContinuationToken("page-2");
+        String actual = underTest.selectContinuationToken();
+        underTest.updateContinuationToken(null);
+
+        // Then
+        assertThat(actual).isEqualTo("page-2");
+        assertThat(underTest.selectContinuationToken()).isNull();
+    }
+
+    @Test
+    void runsOneSweepAtATime() {
+        // Given
+        AtomicBoolean nestedRan = new AtomicBoolean();
+        AtomicBoolean nestedStarted = new AtomicBoolean();
+
+        // When
+        // the nested run takes another connection, as a second instance would
+        boolean ran = underTest.runExclusively(() ->
+                nestedStarted.set(underTest.runExclusively(() -> nestedRan.set(true))));
+        boolean ranAfterRelease = underTest.runExclusively(() -> { });
+
+        // Then
+        assertThat(ran).isTrue();
+        assertThat(nestedStarted).isFalse();
+        assertThat(nestedRan).isFalse();
+        assertThat(ranAfterRelease).isTrue();
+    }
+}
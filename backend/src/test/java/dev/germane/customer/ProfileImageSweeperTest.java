@@ -0,0 +1,155 @@
+package dev.germane.customer;
+
+import dev.germane.s3.S3Buckets;
+import dev.germane.s3.S3ObjectPage;
+import dev.germane.s3.S3ObjectPage.S3ObjectSummary;
+import dev.germane.s3.S3Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProfileImageSweeperTest {
+
+    private static final String BUCKET = "customer-bucket";
+    private static final String CONTENT_HASH =
+            "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e";
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private S3Buckets s3Buckets;
+
+    @Mock
+    private CustomerDao customerDao;
+
+    @Mock
+    private ProfileImageReferenceDao profileImageReferenceDao;
+
+    @Mock
+    private ProfileImageSweepDao profileImageSweepDao;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicReference<String> continuationToken = new AtomicReference<>();
+
+    private ProfileImageSweeper underTest;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(s3Buckets.getCustomer()).thenReturn(BUCKET);
+        lenient().when(profileImageSweepDao.runExclusively(any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return true;
+        });
+        lenient().when(profileImageSweepDao.selectContinuationToken())
+                .thenAnswer(invocation -> continuationToken.get());
+        lenient().doAnswer(invocation -> {
+            continuationToken.set(invocation.getArgument(0));
+            return null;
+        }).when(profileImageSweepDao).updateContinuationToken(any());
+        underTest = new ProfileImageSweeper(
+                s3Service,
+                s3Buckets,
+                customerDao,
+                profileImageReferenceDao,
+                profileImageSweepDao,
+                new TransactionTemplate(transactionManager),
+                meterRegistry,
+                2,
+                Duration.ofHours(1),
+                1000);
+    }
+
+    @Test
+    void deletesOnlyOldUnreferencedImages() {
+        // Given
+        Instant old = Instant.now().minus(Duration.ofDays(1));
+        when(s3Service.listObjects(BUCKET, "profile-images/", null, ProfileImageSweeper.PAGE_SIZE))
+                .thenReturn(new S3ObjectPage(List.of(
+                        new S3ObjectSummary("profile-images/1/current", old),
+                        new S3ObjectSummary("profile-images/1/current_64", old),
+                        new S3ObjectSummary("profile-images/1/replaced", old),
+                        new S3ObjectSummary("profile-images/1/replaced_64", old),
+                        new S3ObjectSummary("profile-images/2/pending", Instant.now()),
+                        new S3ObjectSummary("profile-images/readme.txt", old),
+                        new S3ObjectSummary("profile-images/sha256/" + CONTENT_HASH, old),
+                        new S3ObjectSummary("profile-images/sha256/" + CONTENT_HASH + "_256", old)),
+                        null));
+        when(customerDao.selectReferencedProfileImageIds(List.of("current", "replaced")))
+                .thenReturn(List.of("current"));
+        when(profileImageReferenceDao.deleteUnreferenced(eq(List.of(CONTENT_HASH)), any(Instant.class)))
+                .thenReturn(List.of(CONTENT_HASH));
+
+        // When
+        underTest.sweep();
+
+        // Then
+        verify(s3Service).deleteObjects(BUCKET, List.of(
+                "profile-images/1/replaced",
+                "profile-images/1/replaced_64"));
+        verify(s3Service).deleteObjects(BUCKET, List.of(
+                "profile-images/sha256/" + CONTENT_HASH,
+                "profile-images/sha256/" + CONTENT_HASH + "_256"));
+        verify(transactionManager).commit(any());
+        assertThat(meterRegistry.get("profile.image.sweeper.objects.scanned").counter().count())
+                .isEqualTo(8);
+        assertThat(meterRegistry.get("profile.image.sweeper.objects.deleted").counter().count())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void resumesFromLastPageOnNextRun() {
+        // Given
+        when(s3Service.listObjects(eq(BUCKET), eq("profile-images/"), isNull(), anyInt()))
+                .thenReturn(new S3ObjectPage(List.of(), "page-2"));
+        when(s3Service.listObjects(eq(BUCKET), eq("profile-images/"), eq("page-2"), anyInt()))
+                .thenReturn(new S3ObjectPage(List.of(), "page-3"));
+        when(s3Service.listObjects(eq(BUCKET), eq("profile-images/"), eq("page-3"), anyInt()))
+                .thenReturn(new S3ObjectPage(List.of(), null));
+
+        // When
+        underTest.sweep();
+        underTest.sweep();
+
+        // Then
+        verify(s3Service).listObjects(eq(BUCKET), eq("profile-images/"), isNull(), anyInt());
+        verify(s3Service).listObjects(eq(BUCKET), eq("profile-images/"), eq("page-2"), anyInt());
+        verify(s3Service).listObjects(eq(BUCKET), eq("profile-images/"), eq("page-3"), anyInt());
+        verifyNoMoreInteractions(s3Service);
+        assertThat(continuationToken.get()).isNull();
+    }
+
+    @Test
+    void skipsRunWhileAnotherInstanceSweeps() {
+        // Given
+        doReturn(false).when(profileImageSweepDao).runExclusively(any());
+
+        // When
+        underTest.sweep();
+
+        // Then
+        verifyNoInteractions(s3Service, customerDao, profileImageReferenceDao);
+    }
+}
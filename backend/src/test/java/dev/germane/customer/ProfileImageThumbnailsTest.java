@@ -0,0 +1,124 @@
+package dev.germane.customer;
+
+import dev.germane.s3.S3Buckets;
+import dev.germane.s3.S3ObjectStream;
+import dev.germane.s3.S3Service;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProfileImageThumbnailsTest {
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private S3Buckets s3Buckets;
+
+    private ProfileImageThumbnails underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ProfileImageThumbnails(s3Service, s3Buckets, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    void canGenerateThumbnailsForEverySize() throws IOException {
+        // Given
+        Long customerId = 1L;
+        String profileImageId = "profile_image_id1234";
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+
+        byte[] image = new ClassPathResource("female.jpg").getContentAsByteArray();
+        BufferedImage original = ImageIO.read(new ByteArrayInputStream(image));
+        when(s3Service.getObjectStream(
+                bucket,
+                "profile-images/%s/%s".formatted(customerId, profileImageId),
+                null)
+        ).thenReturn(new S3ObjectStream(new ByteArrayInputStream(image), (long) image.length, null, "image/jpeg"));
+
+        // When
+        underTest.generate(customerId, profileImageId);
+
+        // Then
+        for (int size : ProfileImageThumbnails.SIZES) {
+            ArgumentCaptor<byte[]> thumbnailArgumentCaptor = ArgumentCaptor.forClass(byte[].class);
+            verify(s3Service).putObject(
+                    eq(bucket),
+                    eq("profile-images/%s/%s_%d".formatted(customerId, profileImageId, size)),
+                    thumbnailArgumentCaptor.capture(),
+                    eq("image/jpeg"));
+
+            BufferedImage thumbnail = ImageIO.read(
+                    new ByteArrayInputStream(thumbnailArgumentCaptor.getValue()));
+            assertThat(Math.max(thumbnail.getWidth(), thumbnail.getHeight()))
+                    .isEqualTo(Math.min(size, Math.max(original.getWidth(), original.getHeight())));
+        }
+    }
+
+    @Test
+    void skipsImagesAboveThePixelLimitWithoutDecodingThem() throws IOException {
+        // Given
+        Long customerId = 1L;
+        String profileImageId = "profile_image_id1234";
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+
+        // one bit per pixel compresses to a few kilobytes
+        BufferedImage huge = new BufferedImage(8_000, 6_000, BufferedImage.TYPE_BYTE_BINARY);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(huge, "png", png);
+        byte[] image = png.toByteArray();
+        when(s3Service.getObjectStream(
+                bucket,
+                "profile-images/%s/%s".formatted(customerId, profileImageId),
+                null)
+        ).thenReturn(new S3ObjectStream(new ByteArrayInputStream(image), (long) image.length, null, "image/jpeg"));
+
+        // When
+        underTest.generate(customerId, profileImageId);
+
+        // Then
+        assertThat(8_000L * 6_000L).isGreaterThan(ProfileImageThumbnails.MAX_PIXELS);
+        verify(s3Service, never()).putObject(any(), any(), any(byte[].class), any());
+    }
+
+    @Test
+    void resizeKeepsAspectRatioAndNeverUpscales() {
+        // Given
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_ARGB);
+
+        // When
+        BufferedImage small = ProfileImageThumbnails.resize(image, 64);
+        BufferedImage large = ProfileImageThumbnails.resize(image, 1024);
+
+        // Then
+        assertThat(small.getWidth()).isEqualTo(64);
+        assertThat(small.getHeight()).isEqualTo(32);
+        assertThat(large.getWidth()).isEqualTo(400);
+        assertThat(large.getHeight()).isEqualTo(200);
+    }
+}
@@ -0,0 +1,80 @@
+package dev.germane.customer;
+
+import dev.germane.exception.RequestValidationException;
+import dev.germane.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+
+    @Mock
+    private ReactiveCustomerDao customerDao;
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private ReactiveCustomerService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveCustomerService(customerDao, customerDTOMapper);
+    }
+
+    @Test
+    void streamsEveryCustomerWithoutLimit() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(customerDao.selectCustomersAfter(0L)).thenReturn(Flux.just(customer));
+
+        // When
+        List<CustomerDTO> actual = underTest.getCustomers(null, null).collectList().block();
+
+        // Then
+        assertThat(actual).containsExactly(customerDTOMapper.apply(customer));
+        verify(customerDao, never()).selectCustomersAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void readsLimitedPageAfterCustomer() {
+        // Given
+        Customer customer = new Customer(6L, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(customerDao.selectCustomersAfter(5L, 10)).thenReturn(Flux.just(customer));
+
+        // When
+        List<CustomerDTO> actual = underTest.getCustomers(5L, 10).collectList().block();
+
+        // Then
+        assertThat(actual).containsExactly(customerDTOMapper.apply(customer));
+    }
+
+    @Test
+    void willThrowWhenLimitIsOutOfRange() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomers(null, CustomerService.MAX_PAGE_SIZE + 1).blockLast())
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenGetCustomerReturnsEmpty() {
+        // Given
+        when(customerDao.selectCustomerById(1L)).thenReturn(Mono.empty());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomer(1L).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [1] not found");
+    }
+}
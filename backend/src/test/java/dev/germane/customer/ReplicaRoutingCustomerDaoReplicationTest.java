@@ -0,0 +1,176 @@
+package dev.germane.customer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.germane.datasource.ReplicaHealthCheck;
+import dev.germane.datasource.ReplicaRoutingDataSource;
+import dev.germane.datasource.ReplicaStickiness;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the routing against a primary and a hot standby streaming from it,
+ * the standby cloned with {@code pg_basebackup} once the primary is up.
+ */
+@Testcontainers
+class ReplicaRoutingCustomerDaoReplicationTest {
+
+    private static final String IMAGE = "postgres:15-alpine";
+    private static final Network NETWORK = Network.newNetwork();
+
+    @Container
+    private static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>(IMAGE)
+            .withNetwork(NETWORK)
+            .withNetworkAliases("primary")
+            .withDatabaseName("customer")
+            .withUsername("customer")
+            .withPassword("password")
+            // the image only lets local connections replicate
+            .withCopyToContainer(Transferable.of("""
+                    echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
+                    """), "/docker-entrypoint-initdb.d/replication.sh");
+
+    @Container
+    private static final GenericContainer<?> replica = new GenericContainer<>(IMAGE)
+            .dependsOn(primary)
+            .withNetwork(NETWORK)
+            .withEnv("PGPASSWORD", "password")
+            .withExposedPorts(5432)
+            .withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres"))
+            .withCommand("sh", "-c", "pg_basebackup -h primary -U customer -D \"$PGDATA\" -R -X stream"
+                    + " && chmod 700 \"$PGDATA\""
+                    + " && exec postgres -c fsync=off")
+            .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*\\n", 1)
+                    .withStartupTimeout(Duration.ofMinutes(2)));
+
+    private static HikariDataSource primaryDataSource;
+    private static HikariDataSource replicaDataSource;
+    private static ReplicaRoutingDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void beforeAll() {
+        Flyway.configure()
+                .dataSource(primary.getJdbcUrl(), primary.getUsername(), primary.getPassword())
+                .load()
+                .migrate();
+
+        primaryDataSource = new HikariDataSource();
+        primaryDataSource.setJdbcUrl(primary.getJdbcUrl());
+        primaryDataSource.setUsername(primary.getUsername());
+        primaryDataSource.setPassword(primary.getPassword());
+
+        replicaDataSource = new HikariDataSource();
+        replicaDataSource.setJdbcUrl("jdbc:postgresql://%s:%s/customer".formatted(
+                replica.getHost(), replica.getMappedPort(5432)));
+        replicaDataSource.setUsername(primary.getUsername());
+        replicaDataSource.setPassword(primary.getPassword());
+        replicaDataSource.setReadOnly(true);
+
+        dataSource = new ReplicaRoutingDataSource(primaryDataSource, List.of(
+                new ReplicaRoutingDataSource.Replica("replica-1", replicaDataSource)));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        primaryDataSource.close();
+        replicaDataSource.close();
+    }
+
+    @Test
+    void readsFromReplicaAndWritesToPrimary() {
+        // When
+        Boolean readOnlyInRecovery = ReplicaRoutingDataSource.readOnly(
+                () -> jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class));
+        Boolean inRecovery = jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class);
+
+        // Then
+        assertThat(readOnlyInRecovery).isTrue();
+        assertThat(inRecovery).isFalse();
+    }
+
+    @Test
+    void readsOwnWriteBeforeReplicaHasIt() throws InterruptedException {
+        // Given
+        CustomerDao underTest = new ReplicaRoutingCustomerDao(
+                new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper()),
+                new ReplicaStickiness(Duration.ofMinutes(1)));
+        String email = "replica-" + UUID.randomUUID() + "@gmail.com";
+
+        // When
+        underTest.insertCustomer(new Customer("Alex", email, "password", 19, Gender.MALE));
+
+        // Then
+        assertThat(underTest.selectUserByEmail(email)).isPresent();
+        assertThat(underTest.existsCustomerWithEmail(email)).isTrue();
+        assertThat(awaitOnReplica(email)).isTrue();
+    }
+
+    @Test
+    void failsOverToPrimaryWhenReplicaIsDown() {
+        // Given
+        HikariDataSource unreachable = new HikariDataSource();
+        unreachable.setJdbcUrl("jdbc:postgresql://localhost:1/customer");
+        unreachable.setConnectionTimeout(250);
+        unreachable.setInitializationFailTimeout(-1);
+        ReplicaRoutingDataSource.Replica down = new ReplicaRoutingDataSource.Replica("replica-down", unreachable);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, List.of(down));
+        CustomerDao underTest = new ReplicaRoutingCustomerDao(
+                new CustomerJDBCDataAccessService(new JdbcTemplate(routing), new CustomerRowMapper()),
+                new ReplicaStickiness(Duration.ofMinutes(1)));
+
+        // When
+        List<Customer> actual = underTest.selectCustomersAfter(0L, 10);
+        new ReplicaHealthCheck(routing, Duration.ofDays(1)).check();
+
+        // Then
+        assertThat(actual).isNotNull();
+        assertThat(down.isHealthy()).isFalse();
+        unreachable.close();
+    }
+
+    @Test
+    void marksReplicaDownWhileBehindAndUpOnceCaughtUp() {
+        // Given
+        ReplicaRoutingDataSource.Replica replica = new ReplicaRoutingDataSource.Replica("replica-1", replicaDataSource);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, List.of(replica));
+
+        // When
+        new ReplicaHealthCheck(routing, Duration.ofMillis(-1)).check();
+        boolean healthyWhenNoLagIsTolerated = replica.isHealthy();
+        new ReplicaHealthCheck(routing, Duration.ofDays(1)).check();
+
+        // Then
+        assertThat(healthyWhenNoLagIsTolerated).isFalse();
+        assertThat(replica.isHealthy()).isTrue();
+    }
+
+    private static boolean awaitOnReplica(String email) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            Boolean exists = ReplicaRoutingDataSource.readOnly(() -> jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM customer WHERE email = ?)", Boolean.class, email));
+            if (Boolean.TRUE.equals(exists)) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,143 @@
+package dev.germane.customer;
+
+import dev.germane.datasource.ReplicaRoutingDataSource;
+import dev.germane.datasource.ReplicaStickiness;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingCustomerDaoTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+    private ReplicaRoutingDataSource dataSource;
+    private final List<Connection> connections = new ArrayList<>();
+    private ReplicaRoutingCustomerDao underTest;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(
+                new ReplicaRoutingDataSource.Replica("replica-1", replica)));
+        underTest = new ReplicaRoutingCustomerDao(customerDao, new ReplicaStickiness(Duration.ofMinutes(1)));
+        lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+        lenient().when(replica.getConnection()).thenReturn(replicaConnection);
+        lenient().when(customerDao.selectCustomerById(anyLong())).thenAnswer(invocation -> {
+            connections.add(dataSource.getConnection());
+            return Optional.empty();
+        });
+        lenient().when(customerDao.selectUserByEmail(anyString())).thenAnswer(invocation -> {
+            connections.add(dataSource.getConnection());
+            return Optional.empty();
+        });
+        lenient().when(customerDao.selectCustomersAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            connections.add(dataSource.getConnection());
+            return List.of();
+        });
+        lenient().when(customerDao.selectReferencedProfileImageIds(any())).thenAnswer(invocation -> {
+            connections.add(dataSource.getConnection());
+            return List.of();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readsFromReplica() {
+        // When
+        underTest.selectCustomerById(1L);
+        underTest.selectUserByEmail("alex@gmail.com");
+        underTest.selectCustomersAfter(0L, 10);
+
+        // Then
+        assertThat(connections).containsOnly(replicaConnection);
+    }
+
+    @Test
+    void readsWrittenCustomerFromPrimary() {
+        // Given
+        underTest.updateCustomer(new Customer(1L, null, "alex@gmail.com", null, null, null));
+
+        // When
+        underTest.selectCustomerById(1L);
+        underTest.selectUserByEmail("alex@gmail.com");
+        underTest.selectCustomerById(2L);
+
+        // Then
+        assertThat(connections).containsExactly(primaryConnection, primaryConnection, replicaConnection);
+    }
+
+    @Test
+    void readsFromPrimaryForRestOfRequestAfterWrite() {
+        // Given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        underTest.deleteById(1L);
+
+        // When
+        underTest.selectCustomerById(2L);
+        underTest.selectCustomersAfter(0L, 10);
+
+        // Then
+        assertThat(connections).containsOnly(primaryConnection);
+    }
+
+    @Test
+    void readsFromPrimaryForSameSubjectAfterWrite() {
+        // Given
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "alex@gmail.com", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        underTest.updateProfileImageId(1L, "image");
+
+        // When
+        underTest.selectCustomersAfter(0L, 10);
+        SecurityContextHolder.clearContext();
+        underTest.selectCustomersAfter(0L, 10);
+
+        // Then
+        assertThat(connections).containsExactly(primaryConnection, replicaConnection);
+    }
+
+    @Test
+    void readsReferencedProfileImagesFromPrimary() {
+        // When
+        underTest.selectReferencedProfileImageIds(List.of("image"));
+
+        // Then
+        assertThat(connections).containsOnly(primaryConnection);
+    }
+}
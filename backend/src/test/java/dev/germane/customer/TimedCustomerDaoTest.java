@@ -0,0 +1,101 @@
+package dev.germane.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimedCustomerDaoTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private MeterRegistry meterRegistry;
+    private TimedCustomerDao underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new TimedCustomerDao(customerDao, meterRegistry, "jdbc");
+    }
+
+    @Test
+    void recordsTimerAndRowsPerMethodAndImplementation() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(customerDao.selectCustomersAfter(0L, 10)).thenReturn(List.of(customer, customer));
+        when(customerDao.selectCustomerById(2L)).thenReturn(Optional.empty());
+
+        // When
+        underTest.selectCustomersAfter(0L, 10);
+        underTest.selectCustomerById(2L);
+
+        // Then
+        assertThat(meterRegistry.get(TimedCustomerDao.TIMER)
+                .tags("implementation", "jdbc", "method", "selectCustomersAfter", "exception", "none")
+                .timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(TimedCustomerDao.ROWS)
+                .tags("implementation", "jdbc", "method", "selectCustomersAfter")
+                .summary().totalAmount())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get(TimedCustomerDao.ROWS)
+                .tags("implementation", "jdbc", "method", "selectCustomerById")
+                .summary().totalAmount())
+                .isZero();
+    }
+
+    @Test
+    void countsStreamedRows() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            consumer.accept(customer);
+            consumer.accept(customer);
+            return null;
+        }).when(customerDao).streamAllCustomers(any());
+        List<Customer> streamed = new ArrayList<>();
+
+        // When
+        underTest.streamAllCustomers(streamed::add);
+
+        // Then
+        assertThat(streamed).hasSize(2);
+        assertThat(meterRegistry.get(TimedCustomerDao.ROWS)
+                .tags("method", "streamAllCustomers")
+                .summary().totalAmount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void tagsFailedCallsWithException() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        doThrow(new DataIntegrityViolationException("duplicate"))
+                .when(customerDao).insertCustomer(customer);
+
+        // When
+        assertThatThrownBy(() -> underTest.insertCustomer(customer))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        // Then
+        assertThat(meterRegistry.get(TimedCustomerDao.TIMER)
+                .tags("method", "insertCustomer", "exception", "DataIntegrityViolationException")
+                .timer().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,121 @@
+package dev.germane.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica1;
+    @Mock
+    private DataSource replica2;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replica1Connection;
+    @Mock
+    private Connection replica2Connection;
+    private ReplicaRoutingDataSource underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReplicaRoutingDataSource(primary, List.of(
+                new ReplicaRoutingDataSource.Replica("replica-1", replica1),
+                new ReplicaRoutingDataSource.Replica("replica-2", replica2)));
+    }
+
+    @Test
+    void usesPrimaryOutsideReadOnly() throws SQLException {
+        // Given
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        Connection actual = underTest.getConnection();
+
+        // Then
+        assertThat(actual).isSameAs(primaryConnection);
+        verifyNoInteractions(replica1, replica2);
+    }
+
+    @Test
+    void spreadsReadOnlyConnectionsOverReplicas() throws SQLException {
+        // Given
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+
+        // When
+        List<Connection> actual = ReplicaRoutingDataSource.readOnly(() -> List.of(
+                connection(), connection(), connection(), connection()));
+
+        // Then
+        assertThat(actual).containsExactlyInAnyOrder(
+                replica1Connection, replica1Connection, replica2Connection, replica2Connection);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void skipsReplicasMarkedDown() throws SQLException {
+        // Given
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        underTest.getReplicas().get(0).markDown("test");
+
+        // When
+        List<Connection> actual = ReplicaRoutingDataSource.readOnly(() -> List.of(connection(), connection()));
+
+        // Then
+        assertThat(actual).containsOnly(replica2Connection);
+        verifyNoInteractions(replica1, primary);
+    }
+
+    @Test
+    void failsOverToPrimaryAndMarksReplicaDown() throws SQLException {
+        // Given
+        underTest.getReplicas().get(1).markDown("test");
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        List<Connection> actual = ReplicaRoutingDataSource.readOnly(() -> List.of(connection(), connection()));
+
+        // Then
+        assertThat(actual).containsOnly(primaryConnection);
+        assertThat(underTest.getReplicas()).noneMatch(ReplicaRoutingDataSource.Replica::isHealthy);
+        verify(replica1).getConnection();
+    }
+
+    @Test
+    void restoresRoutingAfterReadOnly() throws SQLException {
+        // Given
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        ReplicaRoutingDataSource.readOnly(() -> ReplicaRoutingDataSource.readOnly(this::connection));
+        Connection actual = underTest.getConnection();
+
+        // Then
+        assertThat(actual).isSameAs(primaryConnection);
+    }
+
+    private Connection connection() {
+        try {
+            return underTest.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.github.javafaker.Name;
 import dev.germane.auth.AuthenticationRequest;
 import dev.germane.auth.AuthenticationResponse;
 import dev.germane.customer.CustomerDTO;
+import dev.germane.customer.CustomerPage;
 import dev.germane.customer.CustomerRegistrationRequest;
 import dev.germane.customer.Gender;
 import dev.germane.jwt.JWTUtil;
@@ -16,7 +17,9 @@ import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -86,17 +89,7 @@ public class AuthenticationIntegrationTest {
 
         AuthenticationResponse authenticationResponse = result.getResponseBody();
 
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_PATH)
-                .accept(APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         var id = allCustomers.stream()
                 .filter(c -> c.email().equals(email))
@@ -128,4 +121,31 @@ public class AuthenticationIntegrationTest {
         assertThat(customerDTO.roles()).isEqualTo(List.of("ROLE_USER"));
     }
 
+    private List<CustomerDTO> getAllCustomers(String jwtToken) {
+        List<CustomerDTO> customers = new ArrayList<>();
+        CustomerPage page = getCustomersPage(jwtToken, null);
+        customers.addAll(page.content());
+        while (page.nextCursor() != null) {
+            page = getCustomersPage(jwtToken, page.nextCursor());
+            customers.addAll(page.content());
+        }
+        return customers;
+    }
+
+    private CustomerPage getCustomersPage(String jwtToken, String cursor) {
+        return webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path(CUSTOMER_PATH)
+                        .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                        .queryParam("size", 100)
+                        .build())
+                .accept(APPLICATION_JSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerPage.class)
+                .returnResult()
+                .getResponseBody();
+    }
 }
@@ -9,6 +9,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -17,14 +20,19 @@ import org.testcontainers.shaded.com.google.common.io.Files;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
-import static org.springframework.http.MediaType.IMAGE_PNG;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.IMAGE_JPEG;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT)
 public class CustomerIntegrationTest {
@@ -63,17 +71,7 @@ public class CustomerIntegrationTest {
                 .get(0);
 
         // get all customers
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_PATH)
-                .accept(APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         var id = allCustomers.stream()
                 .filter(c -> c.email().equals(email))
@@ -108,6 +106,53 @@ public class CustomerIntegrationTest {
                 .isEqualTo(expectedCustomer);
     }
 
+    @Test
+    void canExportCustomers() {
+        // create registration request
+        Faker faker = new Faker();
+        Name fakerName = faker.name();
+        String name = fakerName.fullName();
+        String email = fakerName.lastName() + UUID.randomUUID() + "@chanchito.com";
+        int age = faker.random().nextInt(1, 100);
+        Gender gender = faker.options().option(Gender.class);
+
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                name, email, "password", age, gender
+        );
+
+        String jwtToken = webTestClient.post()
+                .uri(CUSTOMER_PATH)
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Void.class)
+                .getResponseHeaders()
+                .get(AUTHORIZATION)
+                .get(0);
+
+        // export all customers
+        List<CustomerDTO> exportedCustomers = webTestClient.get()
+                .uri(CUSTOMER_PATH + "/export")
+                .accept(APPLICATION_NDJSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(APPLICATION_NDJSON)
+                .returnResult(CustomerDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(exportedCustomers)
+                .extracting(CustomerDTO::email)
+                .contains(email);
+    }
+
     @Test
     void canDeleteCustomer() {
         // create registration request
@@ -152,17 +197,7 @@ public class CustomerIntegrationTest {
         ;
 
         // get all customers
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_PATH)
-                .accept(APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         var id = allCustomers.stream()
                 .filter(c -> c.email().equals(email))
@@ -218,17 +253,7 @@ public class CustomerIntegrationTest {
                 .get(0);
 
         // get all customers
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_PATH)
-                .accept(APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         var id = allCustomers.stream()
                 .filter(c -> c.email().equals(email))
@@ -308,17 +333,7 @@ public class CustomerIntegrationTest {
                 .get(0);
 
         // get all customers
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_PATH)
-                .accept(APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         CustomerDTO customerDTO = allCustomers.stream()
                 .filter(c -> c.email().equals(email))
@@ -394,17 +409,7 @@ public class CustomerIntegrationTest {
                 .get(0);
 
         // get all customers
-        List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_PATH)
-                .accept(APPLICATION_JSON)
-                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<CustomerDTO> allCustomers = getAllCustomers(jwtToken);
 
         CustomerDTO customerDTO = allCustomers.stream()
                 .filter(c -> c.email().equals(email))
@@ -451,10 +456,12 @@ public class CustomerIntegrationTest {
 
         byte[] downloadedImage = webTestClient.get()
                 .uri(CUSTOMER_PATH + "/{customerId}/profile-image", customerDTO.id())
-                .accept(IMAGE_PNG)
+                .accept(IMAGE_JPEG)
                 .exchange()
                 .expectStatus()
                 .isOk()
+                .expectHeader()
+                .contentType(IMAGE_JPEG)
                 .expectBody(byte[].class)
                 .returnResult()
                 .getResponseBody();
@@ -462,5 +469,63 @@ public class CustomerIntegrationTest {
         byte[] actual = Files.toByteArray(image.getFile());
 
         assertThat(actual).isEqualTo(downloadedImage);
+
+        // revalidate with the image id as ETag
+
+        webTestClient.get()
+                .uri(CUSTOMER_PATH + "/{customerId}/profile-image", customerDTO.id())
+                .accept(IMAGE_JPEG)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"%s\"".formatted(profileImageId))
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        // download the first bytes of the versioned image
+
+        byte[] firstBytes = webTestClient.get()
+                .uri(CUSTOMER_PATH + "/{customerId}/profile-image/{profileImageId}",
+                        customerDTO.id(), profileImageId)
+                .accept(IMAGE_JPEG)
+                .header(HttpHeaders.RANGE, "bytes=0-99")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader()
+                .valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 0-99/%s".formatted(actual.length))
+                .expectHeader()
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(firstBytes).isEqualTo(Arrays.copyOf(actual, 100));
+    }
+
+    private List<CustomerDTO> getAllCustomers(String jwtToken) {
+        List<CustomerDTO> customers = new ArrayList<>();
+        CustomerPage page = getCustomersPage(jwtToken, null);
+        customers.addAll(page.content());
+        while (page.nextCursor() != null) {
+            page = getCustomersPage(jwtToken, page.nextCursor());
+            customers.addAll(page.content());
+        }
+        return customers;
+    }
+
+    private CustomerPage getCustomersPage(String jwtToken, String cursor) {
+        return webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path(CUSTOMER_PATH)
+                        .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                        .queryParam("size", 100)
+                        .build())
+                .accept(APPLICATION_JSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", (jwtToken)))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerPage.class)
+                .returnResult()
+                .getResponseBody();
     }
 }
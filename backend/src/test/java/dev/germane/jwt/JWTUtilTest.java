@@ -0,0 +1,54 @@
+package dev.germane.jwt;
+
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JWTUtilTest {
+
+    private final JWTUtil underTest = new JWTUtil(10);
+
+    @Test
+    void canVerifyIssuedToken() {
+        // Given
+        String token = underTest.issueToken("german@gmail.com", "ROLE_USER");
+
+        // When
+        VerifiedToken actual = underTest.verify(token);
+
+        // Then
+        assertThat(actual.subject()).isEqualTo("german@gmail.com");
+        assertThat(actual.scopes()).isEqualTo(List.of("ROLE_USER"));
+        assertThat(actual.isExpired()).isFalse();
+        assertThat(underTest.isTokenValid(token, "german@gmail.com")).isTrue();
+    }
+
+    @Test
+    void willReturnCachedResultForSameToken() {
+        // Given
+        String token = underTest.issueToken("german@gmail.com", "ROLE_USER");
+
+        // When
+        VerifiedToken first = underTest.verify(token);
+        VerifiedToken second = underTest.verify(token);
+
+        // Then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void willThrowWhenSignatureDoesNotMatch() {
+        // Given
+        String token = underTest.issueToken("german@gmail.com", "ROLE_USER");
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify(tampered))
+                .isInstanceOf(SignatureException.class);
+    }
+}
@@ -0,0 +1,53 @@
+package dev.germane.jwt;
+
+import dev.germane.customer.CustomerDao;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubjectStatusCacheTest {
+
+    @Mock
+    private CustomerDao customerDao;
+
+    @Test
+    void willOnlyQueryOncePerSubjectWithinTtl() {
+        // Given
+        String subject = "german@gmail.com";
+        SubjectStatusCache underTest = new SubjectStatusCache(customerDao, Duration.ofMinutes(1));
+        when(customerDao.existsCustomerWithEmail(subject)).thenReturn(true);
+
+        // When
+        boolean first = underTest.isActive(subject);
+        boolean second = underTest.isActive(subject);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        verify(customerDao, times(1)).existsCustomerWithEmail(subject);
+    }
+
+    @Test
+    void willQueryAgainOnceTtlHasExpired() {
+        // Given
+        String subject = "german@gmail.com";
+        SubjectStatusCache underTest = new SubjectStatusCache(customerDao, Duration.ZERO);
+        when(customerDao.existsCustomerWithEmail(subject)).thenReturn(true, false);
+
+        // When
+        boolean first = underTest.isActive(subject);
+        boolean second = underTest.isActive(subject);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        verify(customerDao, times(2)).existsCustomerWithEmail(subject);
+    }
+}
@@ -0,0 +1,280 @@
+package dev.germane.load;
+
+import dev.germane.AbstractTestcontainers;
+import dev.germane.auth.AuthenticationRequest;
+import dev.germane.customer.CustomerUpdateRequest;
+import dev.germane.jwt.JWTUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Seeds customers in a Testcontainers Postgres and runs a weighted mix of
+ * login, list, get, update, profile image upload and download against the
+ * running app with S3 mocked on disk, then prints latency percentiles per
+ * operation and writes their histograms to {@code load.report-dir}.
+ * {@link VirtualThreadCustomerApiLoadTest} runs the same workload with
+ * virtual threads, for comparing the two at {@code -Dload.users=1000}, and
+ * {@link ReactiveCustomerApiLoadTest} with the reads on R2DBC.
+ * <p>
+ * Only runs in the {@code load} profile. Settings are system properties:
+ * <ul>
+ *     <li>{@code load.customers}: customers to seed</li>
+ *     <li>{@code load.customers-with-image}: seeded customers that get a
+ *     profile image, uploads and downloads pick among them</li>
+ *     <li>{@code load.mode}: {@code closed} or {@code open}</li>
+ *     <li>{@code load.users}: concurrent users of the closed loop</li>
+ *     <li>{@code load.rate}: requests per second of the open loop</li>
+ *     <li>{@code load.max-in-flight}: open loop requests sent at once</li>
+ *     <li>{@code load.warmup}, {@code load.duration}: ISO-8601 durations</li>
+ *     <li>{@code load.mix}: {@code operation=weight} pairs</li>
+ * </ul>
+ */
+@Tag("load")
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT,
+        properties = {
+                "aws.s3.mock=true",
+                "customer.profile-image.sweeper.enabled=false"
+        })
+class CustomerApiLoadTest extends AbstractTestcontainers {
+
+    private static final String CUSTOMER_PATH = "/api/v1/customers";
+    private static final String LOGIN_PATH = "/api/v1/auth/login";
+    private static final String PASSWORD = "password";
+
+    private static final int CUSTOMERS = Integer.getInteger("load.customers", 1_000);
+    private static final int CUSTOMERS_WITH_IMAGE = Integer.getInteger("load.customers-with-image", 100);
+    private static final String MODE = System.getProperty("load.mode", "closed");
+    private static final int USERS = Integer.getInteger("load.users", 16);
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "100"));
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("load.max-in-flight", 256);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT30S"));
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/load"));
+
+    @LocalServerPort
+    private int port;
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+    @Autowired
+    private JWTUtil jwtUtil;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final AtomicLong updates = new AtomicLong();
+    private WebTestClient webTestClient;
+    private List<SeededCustomer> customers;
+
+    private record SeededCustomer(Long id, String email, String token) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        // one connection per concurrent request, the default pool would queue them on the client
+        ConnectionProvider connections = ConnectionProvider.builder("load")
+                .maxConnections(Math.max(USERS, MAX_IN_FLIGHT))
+                .pendingAcquireMaxCount(-1)
+                .build();
+        webTestClient = WebTestClient
+                .bindToServer(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .baseUrl("http://localhost:" + port)
+                .responseTimeout(Duration.ofSeconds(30))
+                .build();
+
+        // one hash for everyone, BCrypt would dominate seeding otherwise
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        jdbcTemplate.update("""
+                INSERT INTO customer (name, email, password, age, gender)
+                SELECT 'load customer ' || n,
+                       'load-customer-' || n || '@gmail.com',
+                       ?,
+                       18 + n % 60,
+                       CASE WHEN n % 2 = 0 THEN 'MALE' ELSE 'FEMALE' END
+                FROM generate_series(1, ?) n
+                ON CONFLICT ON CONSTRAINT customer_email_unique DO NOTHING
+                """, passwordEncoder.encode(PASSWORD), CUSTOMERS);
+        customers = jdbcTemplate.query("""
+                        SELECT id, email
+                        FROM customer
+                        WHERE email LIKE 'load-customer-%'
+                        ORDER BY id
+                        """,
+                (rs, rowNum) -> new SeededCustomer(
+                        rs.getLong("id"),
+                        rs.getString("email"),
+                        jwtUtil.issueToken(rs.getString("email"), "ROLE_USER")));
+
+        customersWithImage().forEach(this::uploadProfileImage);
+    }
+
+    @Test
+    void customerApiUnderLoad() throws InterruptedException, IOException {
+        Workload workload = new Workload(Workload.weighted(
+                System.getProperty("load.mix", defaultMix()),
+                requests()));
+
+        run(workload, WARMUP, new LatencyReport());
+        LatencyReport report = new LatencyReport();
+        run(workload, DURATION, report);
+
+        System.out.printf("%n%s loop, %s threads, %d customers, %s%n",
+                MODE, virtualThreads ? "virtual" : "platform", customers.size(), DURATION);
+        report.print(System.out, DURATION);
+        report.write(REPORT_DIR.resolve(getClass().getSimpleName()));
+        assertThat(report.total()).isPositive();
+    }
+
+    protected String defaultMix() {
+        return "login=5,list=15,get=40,update=15,upload=5,download=20";
+    }
+
+    protected Map<String, Runnable> requests() {
+        Map<String, Runnable> requests = new LinkedHashMap<>();
+        requests.put("login", () -> login(anyCustomer()));
+        requests.put("list", () -> listCustomers(anyCustomer()));
+        requests.put("get", () -> getCustomer(anyCustomer()));
+        requests.put("update", () -> updateCustomer(anyCustomer()));
+        requests.put("upload", () -> uploadProfileImage(anyCustomerWithImage()));
+        requests.put("download", () -> downloadProfileImage(anyCustomerWithImage()));
+        return requests;
+    }
+
+    private void run(Workload workload, Duration duration, LatencyReport report) throws InterruptedException {
+        switch (MODE) {
+            case "closed" -> workload.closedLoop(USERS, duration, report);
+            case "open" -> workload.openLoop(RATE, MAX_IN_FLIGHT, duration, report);
+            default -> throw new IllegalArgumentException(
+                    "load.mode must be closed or open but was [%s]".formatted(MODE));
+        }
+    }
+
+    private void login(SeededCustomer customer) {
+        webTestClient.post()
+                .uri(LOGIN_PATH)
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(new AuthenticationRequest(customer.email(), PASSWORD))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .returnResult();
+    }
+
+    private void listCustomers(SeededCustomer customer) {
+        webTestClient.get()
+                .uri(CUSTOMER_PATH + "?size={size}", 20)
+                .accept(APPLICATION_JSON)
+                .header(AUTHORIZATION, bearer(customer))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .returnResult();
+    }
+
+    private void getCustomer(SeededCustomer customer) {
+        webTestClient.get()
+                .uri(CUSTOMER_PATH + "/{id}", customer.id())
+                .accept(APPLICATION_JSON)
+                .header(AUTHORIZATION, bearer(customer))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .returnResult();
+    }
+
+    private void updateCustomer(SeededCustomer customer) {
+        webTestClient.put()
+                .uri(CUSTOMER_PATH + "/{id}", customer.id())
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON)
+                .header(AUTHORIZATION, bearer(customer))
+                .bodyValue(new CustomerUpdateRequest(
+                        "load customer update " + updates.incrementAndGet(), null, null, null))
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    private void uploadProfileImage(SeededCustomer customer) {
+        MultipartBodyBuilder bodyBuilder = new MultipartBodyBuilder();
+        bodyBuilder.part("file", new ClassPathResource(
+                customer.id() % 2 == 0 ? "male.jpg" : "female.jpg"));
+        webTestClient.post()
+                .uri(CUSTOMER_PATH + "/{id}/profile-image", customer.id())
+                .header(AUTHORIZATION, bearer(customer))
+                .body(BodyInserters.fromMultipartData(bodyBuilder.build()))
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    private void downloadProfileImage(SeededCustomer customer) {
+        webTestClient.get()
+                .uri(CUSTOMER_PATH + "/{id}/profile-image", customer.id())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .returnResult();
+    }
+
+    protected WebTestClient webTestClient() {
+        return webTestClient;
+    }
+
+    protected String bearerOfAnyCustomer() {
+        return bearer(anyCustomer());
+    }
+
+    protected Long idOfAnyCustomer() {
+        return anyCustomer().id();
+    }
+
+    private SeededCustomer anyCustomer() {
+        return customers.get(ThreadLocalRandom.current().nextInt(customers.size()));
+    }
+
+    private SeededCustomer anyCustomerWithImage() {
+        List<SeededCustomer> withImage = customersWithImage();
+        return withImage.get(ThreadLocalRandom.current().nextInt(withImage.size()));
+    }
+
+    private List<SeededCustomer> customersWithImage() {
+        return customers.subList(0, Math.min(CUSTOMERS_WITH_IMAGE, customers.size()));
+    }
+
+    private static String bearer(SeededCustomer customer) {
+        return "Bearer %s".formatted(customer.token());
+    }
+}
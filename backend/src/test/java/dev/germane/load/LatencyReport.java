@@ -0,0 +1,89 @@
+package dev.germane.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count per operation. Latencies are recorded
+ * in microseconds with three significant digits.
+ */
+class LatencyReport {
+
+    private static final double MICROS_PER_MILLI = 1_000.0;
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String operation, long nanos) {
+        latencies.computeIfAbsent(operation, name -> new ConcurrentHistogram(3))
+                .recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void recordError(String operation) {
+        errors.computeIfAbsent(operation, name -> new LongAdder()).increment();
+    }
+
+    long total() {
+        return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    void print(PrintStream out, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        out.printf("%-10s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "ok", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (String operation : operations()) {
+            Histogram histogram = latencies.getOrDefault(operation, new Histogram(3));
+            out.printf("%-10s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation,
+                    histogram.getTotalCount(),
+                    errors(operation),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+    }
+
+    /**
+     * One {@code .hgrm} percentile distribution per operation, in
+     * milliseconds, for plotting with the HdrHistogram tools.
+     */
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, Histogram> latency : latencies.entrySet()) {
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(directory.resolve(latency.getKey() + ".hgrm")))) {
+                latency.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private Set<String> operations() {
+        Set<String> operations = new TreeSet<>(latencies.keySet());
+        operations.addAll(errors.keySet());
+        return operations;
+    }
+
+    private long errors(String operation) {
+        LongAdder count = errors.get(operation);
+        return count == null ? 0 : count.sum();
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+}
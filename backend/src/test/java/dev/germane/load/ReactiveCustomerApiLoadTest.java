@@ -0,0 +1,88 @@
+package dev.germane.load;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Map;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * {@link CustomerApiLoadTest} with the reads going to the R2DBC endpoints of
+ * the {@code reactive} profile instead of the blocking ones, with the same
+ * weights so the reports compare one for one.
+ */
+@Tag("load")
+@ActiveProfiles("reactive")
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT,
+        properties = {
+                "aws.s3.mock=true",
+                "customer.profile-image.sweeper.enabled=false"
+        })
+class ReactiveCustomerApiLoadTest extends CustomerApiLoadTest {
+
+    private static final String REACTIVE_CUSTOMER_PATH = "/api/v1/reactive/customers";
+
+    @DynamicPropertySource
+    private static void registerR2dbcProperties(DynamicPropertyRegistry registry) {
+        registry.add(
+                "spring.r2dbc.url",
+                () -> "r2dbc:postgresql://%s:%s/%s".formatted(
+                        postgreSQLContainer.getHost(),
+                        postgreSQLContainer.getFirstMappedPort(),
+                        postgreSQLContainer.getDatabaseName())
+        );
+        registry.add(
+                "spring.r2dbc.username",
+                postgreSQLContainer::getUsername
+        );
+        registry.add(
+                "spring.r2dbc.password",
+                postgreSQLContainer::getPassword
+        );
+    }
+
+    @Override
+    protected String defaultMix() {
+        return "login=5,reactive-list=15,reactive-get=40,update=15,upload=5,download=20";
+    }
+
+    @Override
+    protected Map<String, Runnable> requests() {
+        Map<String, Runnable> requests = super.requests();
+        requests.put("reactive-list", this::listCustomers);
+        requests.put("reactive-get", this::getCustomer);
+        return requests;
+    }
+
+    private void listCustomers() {
+        webTestClient().get()
+                .uri(REACTIVE_CUSTOMER_PATH + "?after={after}&limit={limit}", idOfAnyCustomer(), 20)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .header(AUTHORIZATION, bearerOfAnyCustomer())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .returnResult();
+    }
+
+    private void getCustomer() {
+        webTestClient().get()
+                .uri(REACTIVE_CUSTOMER_PATH + "/{id}", idOfAnyCustomer())
+                .accept(APPLICATION_JSON)
+                .header(AUTHORIZATION, bearerOfAnyCustomer())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .returnResult();
+    }
+}
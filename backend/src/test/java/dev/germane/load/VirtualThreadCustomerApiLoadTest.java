@@ -0,0 +1,22 @@
+package dev.germane.load;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * {@link CustomerApiLoadTest} with Tomcat, async request processing and the
+ * S3 upload path on virtual threads. Run both with
+ * {@code mvn -Pload test -Dload.users=1000} and compare the reports.
+ */
+@Tag("load")
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT,
+        properties = {
+                "aws.s3.mock=true",
+                "customer.profile-image.sweeper.enabled=false",
+                "spring.threads.virtual.enabled=true"
+        })
+class VirtualThreadCustomerApiLoadTest extends CustomerApiLoadTest {
+}
@@ -0,0 +1,124 @@
+package dev.germane.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a weighted mix of operations against the API.
+ * <p>
+ * A closed loop keeps a fixed number of users busy, each sending its next
+ * request as soon as the previous one answered, so it measures throughput
+ * but hides queueing: a slow response also delays the requests behind it.
+ * An open loop sends requests at a fixed rate whatever the response times
+ * and measures each from the moment it should have been sent, so time spent
+ * waiting for a free connection or worker counts towards its latency.
+ */
+class Workload {
+
+    /**
+     * A named request that throws when the response is not the expected one.
+     */
+    record Operation(String name, int weight, Runnable request) {
+    }
+
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    Workload(List<Operation> operations) {
+        this.operations = operations.stream()
+                .filter(operation -> operation.weight() > 0)
+                .toList();
+        this.totalWeight = this.operations.stream().mapToInt(Operation::weight).sum();
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("workload needs at least one operation with a weight");
+        }
+    }
+
+    /**
+     * Weights as {@code name=weight} pairs separated by commas, operations
+     * missing from the mix are not run.
+     */
+    static List<Operation> weighted(String mix, Map<String, Runnable> requests) {
+        List<Operation> operations = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split("=");
+            Runnable request = requests.get(nameAndWeight[0]);
+            if (request == null) {
+                throw new IllegalArgumentException(
+                        "unknown operation [%s], expected one of %s"
+                                .formatted(nameAndWeight[0], requests.keySet()));
+            }
+            operations.add(new Operation(
+                    nameAndWeight[0], Integer.parseInt(nameAndWeight[1]), request));
+        }
+        return operations;
+    }
+
+    void closedLoop(int users, Duration duration, LatencyReport report) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        for (int user = 0; user < users; user++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    run(next(), System.nanoTime(), report);
+                }
+            });
+        }
+        await(executor);
+    }
+
+    void openLoop(double requestsPerSecond,
+                  int maxInFlight,
+                  Duration duration,
+                  LatencyReport report) throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(maxInFlight);
+        for (long intendedStart = start; intendedStart < deadline; intendedStart += interval) {
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = next();
+            long scheduled = intendedStart;
+            executor.execute(() -> run(operation, scheduled, report));
+        }
+        await(executor);
+    }
+
+    private Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            pick -= operation.weight();
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("weights changed while picking");
+    }
+
+    private static void run(Operation operation, long start, LatencyReport report) {
+        try {
+            operation.request().run();
+            report.record(operation.name(), System.nanoTime() - start);
+        } catch (RuntimeException | AssertionError e) {
+            report.recordError(operation.name());
+        }
+    }
+
+    private static void await(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("workload did not drain within 10 minutes");
+        }
+    }
+}
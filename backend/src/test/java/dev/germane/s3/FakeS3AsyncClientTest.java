@@ -0,0 +1,69 @@
+package dev.germane.s3;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FakeS3AsyncClientTest {
+
+    @TempDir
+    private Path root;
+
+    private FakeS3AsyncClient underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new FakeS3AsyncClient(new FakeS3(root));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+    }
+
+    @Test
+    void canPutAndGetObject() {
+        // Given
+        underTest.putObject(
+                PutObjectRequest.builder().bucket("customer").key("foo").build(),
+                AsyncRequestBody.fromString("Hello World")).join();
+
+        // When
+        ResponseBytes<GetObjectResponse> actual = underTest.getObject(
+                GetObjectRequest.builder().bucket("customer").key("foo").range("bytes=0-4").build(),
+                AsyncResponseTransformer.toBytes()).join();
+
+        // Then
+        assertThat(actual.asUtf8String()).isEqualTo("Hello");
+        assertThat(actual.response().contentRange()).isEqualTo("bytes 0-4/11");
+    }
+
+    @Test
+    void willCompleteExceptionallyWhenKeyDoesNotExist() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.headObject(
+                HeadObjectRequest.builder().bucket("customer").key("foo").build()).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(NoSuchKeyException.class);
+        assertThatThrownBy(() -> underTest.getObject(
+                GetObjectRequest.builder().bucket("customer").key("foo").build(),
+                AsyncResponseTransformer.toBytes()).join())
+                .hasCauseInstanceOf(NoSuchKeyException.class);
+    }
+}
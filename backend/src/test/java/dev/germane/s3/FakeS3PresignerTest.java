@@ -0,0 +1,104 @@
+package dev.germane.s3;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FakeS3PresignerTest {
+
+    private final FakeS3Presigner underTest =
+            new FakeS3Presigner("http://localhost:8080/fake-s3", "secret");
+
+    @Test
+    void presignedUrlIsOnlyValidForItsMethodAndKey() {
+        // Given
+        S3PresignedUrl presigned = underTest.presignGetObject(
+                "customer", "profile-images/1/foo", Duration.ofMinutes(5));
+
+        // When
+        UriComponents url = UriComponentsBuilder.fromUri(presigned.url()).build();
+        long expiresAt = Long.parseLong(url.getQueryParams().getFirst(FakeS3Presigner.EXPIRES_PARAM));
+        String signature = url.getQueryParams().getFirst(FakeS3Presigner.SIGNATURE_PARAM);
+
+        // Then
+        assertThat(url.getPath()).isEqualTo("/fake-s3/customer/profile-images/1/foo");
+        assertThat(underTest.isValid("GET", "customer", "profile-images/1/foo", expiresAt,
+                FakeS3Presigner.NO_CONTENT, signature))
+                .isTrue();
+        assertThat(underTest.isValid("PUT", "customer", "profile-images/1/foo", expiresAt,
+                FakeS3Presigner.NO_CONTENT, signature))
+                .isFalse();
+        assertThat(underTest.isValid("GET", "customer", "profile-images/2/foo", expiresAt,
+                FakeS3Presigner.NO_CONTENT, signature))
+                .isFalse();
+        assertThat(underTest.isValid("GET", "customer", "profile-images/1/foo", expiresAt + 60,
+                FakeS3Presigner.NO_CONTENT, signature))
+                .isFalse();
+    }
+
+    @Test
+    void uploadUrlSignsItsContentLengthLimit() {
+        // Given
+        S3PresignedUrl presigned = underTest.presignPutObject(
+                "customer", "profile-images/1/foo", 1024, Duration.ofMinutes(5));
+
+        // When
+        UriComponents url = UriComponentsBuilder.fromUri(presigned.url()).build();
+        long expiresAt = Long.parseLong(url.getQueryParams().getFirst(FakeS3Presigner.EXPIRES_PARAM));
+        long maxContentLength = Long.parseLong(
+                url.getQueryParams().getFirst(FakeS3Presigner.MAX_CONTENT_LENGTH_PARAM));
+        String signature = url.getQueryParams().getFirst(FakeS3Presigner.SIGNATURE_PARAM);
+
+        // Then
+        assertThat(maxContentLength).isEqualTo(1024);
+        assertThat(underTest.isValid("PUT", "customer", "profile-images/1/foo", expiresAt,
+                1024, signature))
+                .isTrue();
+        assertThat(underTest.isValid("PUT", "customer", "profile-images/1/foo", expiresAt,
+                1024 * 1024, signature))
+                .isFalse();
+    }
+
+    @Test
+    void withoutBaseUrlPointsAtTheCurrentRequestHost() {
+        // Given
+        FakeS3Presigner presigner = new FakeS3Presigner("", "secret");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setServerName("api.example.com");
+        request.setServerPort(8443);
+        request.setScheme("https");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        // When
+        S3PresignedUrl actual;
+        try {
+            actual = presigner.presignGetObject("customer", "foo", Duration.ofMinutes(5));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        // Then
+        assertThat(actual.url().toString()).startsWith("https://api.example.com:8443/fake-s3/customer/foo?");
+    }
+
+    @Test
+    void expiredUrlIsNotValid() {
+        // Given
+        long expiredAt = Instant.now().minusSeconds(1).getEpochSecond();
+
+        // When
+        boolean actual = underTest.isValid("GET", "customer", "foo", expiredAt,
+                FakeS3Presigner.NO_CONTENT, "signature");
+
+        // Then
+        assertThat(actual).isFalse();
+    }
+}
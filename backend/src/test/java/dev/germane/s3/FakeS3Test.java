@@ -0,0 +1,147 @@
+package dev.germane.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FakeS3Test {
+
+    @TempDir
+    private Path root;
+
+    @Test
+    void putObjectStreamsBodyIntoPlaceAndLeavesNoTempFiles() throws Exception {
+        // Given
+        FakeS3 underTest = new FakeS3(root);
+        byte[] bytes = "Hello World".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        underTest.putObject(
+                PutObjectRequest.builder().bucket("customer").key("a/b").build(),
+                RequestBody.fromInputStream(new ByteArrayInputStream(bytes), bytes.length));
+
+        // Then
+        assertThat(root.resolve("customer/a/b")).hasBinaryContent(bytes);
+        try (var files = Files.list(root.resolve("customer/a"))) {
+            assertThat(files).containsExactly(root.resolve("customer/a/b"));
+        }
+    }
+
+    @Test
+    void getObjectServesRange() throws Exception {
+        // Given
+        FakeS3 underTest = new FakeS3(root);
+        underTest.putObject(
+                PutObjectRequest.builder().bucket("customer").key("foo").build(),
+                RequestBody.fromString("Hello World"));
+
+        // When
+        ResponseInputStream<GetObjectResponse> actual = underTest.getObject(
+                GetObjectRequest.builder().bucket("customer").key("foo").range("bytes=6-").build());
+
+        // Then
+        try (actual) {
+            assertThat(actual.readAllBytes()).isEqualTo("World".getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(actual.response().contentRange()).isEqualTo("bytes 6-10/11");
+    }
+
+    @Test
+    void keepsContentTypeOfObject() throws Exception {
+        // Given
+        FakeS3 underTest = new FakeS3(root);
+        underTest.putObject(
+                PutObjectRequest.builder().bucket("customer").key("foo").contentType("image/jpeg").build(),
+                RequestBody.fromString("Hello World"));
+
+        // When
+        ResponseInputStream<GetObjectResponse> actual = underTest.getObject(
+                GetObjectRequest.builder().bucket("customer").key("foo").build());
+        actual.close();
+
+        // Then
+        assertThat(actual.response().contentType()).isEqualTo("image/jpeg");
+        assertThat(underTest.headObject(HeadObjectRequest.builder().bucket("customer").key("foo").build())
+                .contentType()).isEqualTo("image/jpeg");
+    }
+
+    @Test
+    void headAndDeleteObject() {
+        // Given
+        FakeS3 underTest = new FakeS3(root);
+        underTest.putObject(
+                PutObjectRequest.builder().bucket("customer").key("foo").build(),
+                RequestBody.fromString("Hello World"));
+
+        // When
+        HeadObjectResponse head = underTest.headObject(
+                HeadObjectRequest.builder().bucket("customer").key("foo").build());
+        underTest.deleteObject(DeleteObjectRequest.builder().bucket("customer").key("foo").build());
+
+        // Then
+        assertThat(head.contentLength()).isEqualTo(11L);
+        assertThatThrownBy(() -> underTest.headObject(
+                HeadObjectRequest.builder().bucket("customer").key("foo").build()))
+                .isInstanceOf(NoSuchKeyException.class);
+    }
+
+    @Test
+    void listObjectsV2PagesThroughKeysWithPrefix() {
+        // Given
+        FakeS3 underTest = new FakeS3(root);
+        for (String key : new String[]{"images/3", "images/1", "other/1", "images/2"}) {
+            underTest.putObject(
+                    PutObjectRequest.builder().bucket("customer").key(key).build(),
+                    RequestBody.fromString(key));
+        }
+
+        // When
+        ListObjectsV2Response first = underTest.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket("customer").prefix("images/").maxKeys(2).build());
+        ListObjectsV2Response second = underTest.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket("customer").prefix("images/").maxKeys(2)
+                .continuationToken(first.nextContinuationToken()).build());
+
+        // Then
+        assertThat(first.contents()).extracting(S3Object::key).containsExactly("images/1", "images/2");
+        assertThat(first.isTruncated()).isTrue();
+        assertThat(second.contents()).extracting(S3Object::key).containsExactly("images/3");
+        assertThat(second.isTruncated()).isFalse();
+    }
+
+    @Test
+    void listObjectsV2PagesInKeyOrderAcrossDirectories() {
+        // Given
+        FakeS3 underTest = new FakeS3(root);
+        for (String key : new String[]{"images/2", "images/10", "images/1/a", "images/1-b"}) {
+            underTest.putObject(
+                    PutObjectRequest.builder().bucket("customer").key(key).build(),
+                    RequestBody.fromString(key));
+        }
+
+        // When
+        List<String> keys = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            ListObjectsV2Response page = underTest.listObjectsV2(ListObjectsV2Request.builder()
+                    .bucket("customer").maxKeys(1).continuationToken(continuationToken).build());
+            page.contents().forEach(object -> keys.add(object.key()));
+            continuationToken = page.nextContinuationToken();
+        } while (continuationToken != null);
+
+        // Then
+        assertThat(keys).containsExactly("images/1-b", "images/1/a", "images/10", "images/2");
+    }
+}
@@ -0,0 +1,33 @@
+package dev.germane.s3;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class S3ConfigTest {
+
+    private final S3Config underTest = new S3Config();
+
+    @Test
+    void fakeS3PresignerSignsWithRandomSecretWhenNoneIsSetAndPresignIsOff() {
+        // When
+        FakeS3Presigner first = underTest.fakeS3Presigner("http://localhost:8080/fake-s3", "", false);
+        FakeS3Presigner second = underTest.fakeS3Presigner("http://localhost:8080/fake-s3", "", false);
+
+        // Then
+        assertThat(first.presignGetObject("customer", "foo", Duration.ofMinutes(5)).url())
+                .isNotEqualTo(second.presignGetObject("customer", "foo", Duration.ofMinutes(5)).url());
+    }
+
+    @Test
+    void fakeS3PresignerRequiresSecretWhenPresignIsOn() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.fakeS3Presigner("http://localhost:8080/fake-s3", "", true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("aws.s3.mock-signing-secret must be set when aws.s3.presign.enabled is on");
+    }
+}
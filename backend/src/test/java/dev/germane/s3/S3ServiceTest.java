@@ -1,22 +1,37 @@
 package dev.germane.s3;
 
+import dev.germane.exception.RangeNotSatisfiableException;
+import dev.germane.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -26,11 +41,27 @@ class S3ServiceTest {
     @Mock
     private S3Client s3Client;
 
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Mock
+    private ExecutorService requestBodyExecutor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private S3Service underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new S3Service(s3Client);
+        underTest = new S3Service(
+                s3Client,
+                s3AsyncClient,
+                requestBodyExecutor,
+                new FakeS3Presigner("http://localhost:8080/fake-s3", "secret"),
+                new S3ObjectCache(meterRegistry, DataSize.ofBytes(64), DataSize.ofBytes(16)),
+                DataSize.ofBytes(10),
+                DataSize.ofBytes(4),
+                Duration.ofMinutes(5));
     }
 
     @Test
@@ -41,7 +72,7 @@ class S3ServiceTest {
         byte[] data = "customer-bucket".getBytes();
 
         // When
-        underTest.putObject(bucket, key, data);
+        underTest.putObject(bucket, key, data, "text/plain");
 
         // Then
         ArgumentCaptor<PutObjectRequest> putObjectRequestArgumentCaptor =
@@ -60,6 +91,7 @@ class S3ServiceTest {
 
         assertThat(putObjectRequestArgumentCaptorValue.bucket()).isEqualTo(bucket);
         assertThat(putObjectRequestArgumentCaptorValue.key()).isEqualTo(key);
+        assertThat(putObjectRequestArgumentCaptorValue.contentType()).isEqualTo("text/plain");
 
         RequestBody requestBodyArgumentCaptorValue =
                 requestBodyArgumentCaptor.getValue();
@@ -69,6 +101,123 @@ class S3ServiceTest {
         ).isEqualTo(RequestBody.fromBytes(data).contentStreamProvider().newStream().readAllBytes());
     }
 
+    @Test
+    void canPutObjectFromStream() throws IOException {
+        // Given
+        String bucket = "customer";
+        String key = "foo";
+        byte[] data = "customer".getBytes();
+
+        // When
+        underTest.putObject(bucket, key, new ByteArrayInputStream(data), data.length, "text/plain");
+
+        // Then
+        ArgumentCaptor<PutObjectRequest> putObjectRequestArgumentCaptor =
+                ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<RequestBody> requestBodyArgumentCaptor =
+                ArgumentCaptor.forClass(RequestBody.class);
+
+        verify(s3Client).putObject(
+                putObjectRequestArgumentCaptor.capture(),
+                requestBodyArgumentCaptor.capture()
+        );
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+
+        assertThat(putObjectRequestArgumentCaptor.getValue().contentLength())
+                .isEqualTo(data.length);
+        assertThat(requestBodyArgumentCaptor.getValue().optionalContentLength())
+                .hasValue((long) data.length);
+        assertThat(
+                requestBodyArgumentCaptor.getValue().contentStreamProvider().newStream().readAllBytes()
+        ).isEqualTo(data);
+    }
+
+    @Test
+    void canPutObjectAboveThresholdInParts() {
+        // Given
+        String bucket = "customer";
+        String key = "foo";
+        byte[] data = "customer-bucket".getBytes();
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload").build());
+
+        List<String> parts = new ArrayList<>();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    UploadPartRequest request = invocation.getArgument(0);
+                    RequestBody body = invocation.getArgument(1);
+                    parts.add(new String(body.contentStreamProvider().newStream().readAllBytes()));
+                    return UploadPartResponse.builder()
+                            .eTag("etag-" + request.partNumber())
+                            .build();
+                });
+
+        // When
+        underTest.putObject(bucket, key, new ByteArrayInputStream(data), data.length, "text/plain");
+
+        // Then
+        assertThat(parts).containsExactly("cust", "omer", "-buc", "ket");
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> completeArgumentCaptor =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(completeArgumentCaptor.capture());
+        assertThat(completeArgumentCaptor.getValue().uploadId()).isEqualTo("upload");
+        assertThat(completeArgumentCaptor.getValue().multipartUpload().parts())
+                .extracting(CompletedPart::partNumber, CompletedPart::eTag)
+                .containsExactly(
+                        tuple(1, "etag-1"),
+                        tuple(2, "etag-2"),
+                        tuple(3, "etag-3"),
+                        tuple(4, "etag-4"));
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void willAbortMultipartUploadWhenPartFails() {
+        // Given
+        byte[] data = "customer-bucket".getBytes();
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(SdkClientException.create("connection reset"));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.putObject(
+                "customer", "foo", new ByteArrayInputStream(data), data.length, "text/plain"))
+                .isInstanceOf(SdkClientException.class);
+
+        ArgumentCaptor<AbortMultipartUploadRequest> abortArgumentCaptor =
+                ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3Client).abortMultipartUpload(abortArgumentCaptor.capture());
+        assertThat(abortArgumentCaptor.getValue().uploadId()).isEqualTo("upload");
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void canPutObjectAsyncAboveThresholdInParts() {
+        // Given
+        byte[] data = "customer-bucket".getBytes();
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(requestBodyExecutor).execute(any(Runnable.class));
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+
+        // When
+        underTest.putObjectAsync("customer", "foo", new ByteArrayInputStream(data), data.length, "text/plain").join();
+
+        // Then
+        verify(s3Client, times(4)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verifyNoInteractions(s3AsyncClient);
+    }
+
     @Test
     void canGetObject() throws IOException {
         // Given
@@ -83,6 +232,7 @@ class S3ServiceTest {
 
         ResponseInputStream<GetObjectResponse> res = mock(ResponseInputStream.class);
         when(res.readAllBytes()).thenReturn(data);
+        when(res.response()).thenReturn(GetObjectResponse.builder().build());
 
         when(s3Client.getObject(eq(getObjectRequest))).thenReturn(res);
 
@@ -116,4 +266,249 @@ class S3ServiceTest {
                 .hasMessageContaining("Cannot read bytes")
                 .hasRootCauseInstanceOf(IOException.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    void canGetObjectStreamForRange() {
+        // Given
+        String bucket = "customer";
+        String key = "foo";
+        String range = "bytes=0-3";
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range(range)
+                .build();
+
+        ResponseInputStream<GetObjectResponse> res = new ResponseInputStream<>(
+                GetObjectResponse.builder()
+                        .contentLength(4L)
+                        .contentRange("bytes 0-3/15")
+                        .build(),
+                new ByteArrayInputStream("cust".getBytes()));
+        when(s3Client.getObject(eq(getObjectRequest))).thenReturn(res);
+
+        // When
+        S3ObjectStream actual = underTest.getObjectStream(bucket, key, range);
+
+        // Then
+        assertThat(actual.content()).isSameAs(res);
+        assertThat(actual.contentLength()).isEqualTo(4L);
+        assertThat(actual.contentRange()).isEqualTo("bytes 0-3/15");
+    }
+
+    @Test
+    void willThrowWhenObjectStreamRangeIsNotSatisfiable() {
+        // Given
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(
+                S3Exception.builder().statusCode(416).build());
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(15L).build());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getObjectStream("customer", "foo", "bytes=99-"))
+                .isInstanceOf(RangeNotSatisfiableException.class)
+                .hasMessage("range [bytes=99-] not satisfiable")
+                .extracting("objectSize")
+                .isEqualTo(15L);
+    }
+
+    @Test
+    void willThrowWhenObjectStreamKeyDoesNotExist() {
+        // Given
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(
+                NoSuchKeyException.builder().statusCode(404).build());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getObjectStream("customer", "foo", null))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("object [foo] not found");
+    }
+
+    @Test
+    void canCheckWhetherObjectExists() {
+        // Given
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(4L).build())
+                .thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+        // When
+        boolean exists = underTest.objectExists("customer", "foo");
+        boolean missing = underTest.objectExists("customer", "bar");
+
+        // Then
+        assertThat(exists).isTrue();
+        assertThat(missing).isFalse();
+    }
+
+    @Test
+    void canPresignGetObject() {
+        // Given
+        Instant before = Instant.now();
+
+        // When
+        S3PresignedUrl actual = underTest.presignGetObject("customer", "profile-images/1/foo");
+
+        // Then
+        assertThat(actual.url().toString())
+                .startsWith("http://localhost:8080/fake-s3/customer/profile-images/1/foo?");
+        assertThat(actual.expiresAt())
+                .isBetween(before.plus(Duration.ofMinutes(5)), Instant.now().plus(Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void smallObjectsAreServedFromCache() throws IOException {
+        // Given
+        String bucket = "customer";
+        String key = "foo";
+        byte[] data = "customer-bucket".getBytes();
+
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder()
+                        .contentLength((long) data.length)
+                        .contentType("image/jpeg")
+                        .build(),
+                new ByteArrayInputStream(data)));
+
+        // When
+        S3ObjectStream first = underTest.getObjectStream(bucket, key, null);
+        S3ObjectStream second = underTest.getObjectStream(bucket, key, null);
+
+        // Then
+        assertThat(first.content().readAllBytes()).isEqualTo(data);
+        assertThat(second.content().readAllBytes()).isEqualTo(data);
+        assertThat(second.contentLength()).isEqualTo(data.length);
+        assertThat(second.contentType()).isEqualTo("image/jpeg");
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+        assertThat(meterRegistry.get("s3.object.cache.served").counter().count())
+                .isEqualTo(data.length);
+        assertThat(meterRegistry.get("s3.object.cache.bytes").gauge().value())
+                .isEqualTo(data.length);
+    }
+
+    @Test
+    void largeObjectsAreNotCached() {
+        // Given
+        byte[] data = "customer-bucket-customer-bucket".getBytes();
+
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation ->
+                new ResponseInputStream<>(
+                        GetObjectResponse.builder().contentLength((long) data.length).build(),
+                        new ByteArrayInputStream(data)));
+
+        // When
+        underTest.getObjectStream("customer", "foo", null);
+        underTest.getObjectStream("customer", "foo", null);
+
+        // Then
+        verify(s3Client, times(2)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void putObjectEvictsCachedObject() {
+        // Given
+        byte[] data = "customer".getBytes();
+
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation ->
+                new ResponseInputStream<>(
+                        GetObjectResponse.builder().contentLength((long) data.length).build(),
+                        new ByteArrayInputStream(data)));
+        underTest.getObjectStream("customer", "foo", null);
+
+        // When
+        underTest.putObject("customer", "foo", "updated".getBytes(), "text/plain");
+        underTest.getObjectStream("customer", "foo", null);
+
+        // Then
+        verify(s3Client, times(2)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void canPutObjectAsync() {
+        // Given
+        byte[] data = "customer".getBytes();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        // When
+        underTest.putObjectAsync("customer", "foo", new ByteArrayInputStream(data), data.length, "text/plain").join();
+
+        // Then
+        ArgumentCaptor<PutObjectRequest> putObjectRequestArgumentCaptor =
+                ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<AsyncRequestBody> requestBodyArgumentCaptor =
+                ArgumentCaptor.forClass(AsyncRequestBody.class);
+        verify(s3AsyncClient).putObject(
+                putObjectRequestArgumentCaptor.capture(),
+                requestBodyArgumentCaptor.capture());
+        assertThat(putObjectRequestArgumentCaptor.getValue().key()).isEqualTo("foo");
+        assertThat(putObjectRequestArgumentCaptor.getValue().contentLength()).isEqualTo(data.length);
+        assertThat(requestBodyArgumentCaptor.getValue().contentLength()).contains((long) data.length);
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void smallObjectsStreamedAsyncAreCachedOnceRead() throws IOException {
+        // Given
+        byte[] data = "customer-bucket".getBytes();
+        when(s3AsyncClient.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(CompletableFuture.completedFuture(new ResponseInputStream<>(
+                        GetObjectResponse.builder().contentLength((long) data.length).build(),
+                        new ByteArrayInputStream(data))));
+
+        // When
+        S3ObjectStream first = underTest.getObjectStreamAsync("customer", "foo", null).join();
+        try (var content = first.content()) {
+            assertThat(content.readAllBytes()).isEqualTo(data);
+        }
+        S3ObjectStream second = underTest.getObjectStreamAsync("customer", "foo", null).join();
+
+        // Then
+        assertThat(second.content().readAllBytes()).isEqualTo(data);
+        verify(s3AsyncClient, times(1))
+                .getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class));
+    }
+
+    @Test
+    void willCompleteExceptionallyWhenAsyncObjectKeyDoesNotExist() {
+        // Given
+        when(s3AsyncClient.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(CompletableFuture.failedFuture(new CompletionException(
+                        NoSuchKeyException.builder().statusCode(404).build())));
+
+        // When
+        CompletableFuture<S3ObjectStream> actual = underTest.getObjectStreamAsync("customer", "foo", null);
+
+        // Then
+        assertThatThrownBy(actual::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("object [foo] not found");
+    }
+
+    @Test
+    void willCompleteExceptionallyWhenAsyncRangeIsNotSatisfiable() {
+        // Given
+        when(s3AsyncClient.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(CompletableFuture.failedFuture(new CompletionException(
+                        S3Exception.builder().statusCode(416).build())));
+        when(s3AsyncClient.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(
+                        HeadObjectResponse.builder().contentLength(15L).build()));
+
+        // When
+        CompletableFuture<S3ObjectStream> actual = underTest.getObjectStreamAsync("customer", "foo", "bytes=99-");
+
+        // Then
+        assertThatThrownBy(actual::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(RangeNotSatisfiableException.class)
+                .hasMessage("range [bytes=99-] not satisfiable")
+                .extracting("objectSize")
+                .isEqualTo(15L);
+    }
+}
@@ -0,0 +1,86 @@
+package dev.germane.security;
+
+import dev.germane.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void canEncodeAndMatchOnExecutor() {
+        // Given
+        BoundedPasswordEncoder underTest = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(4), executor, Duration.ofSeconds(1), 1);
+
+        // When
+        String hash = underTest.encode("password");
+
+        // Then
+        assertThat(underTest.matches("password", hash)).isTrue();
+        assertThat(underTest.matches("wrong", hash)).isFalse();
+    }
+
+    @Test
+    void canEncodeMoreThanTheExecutorQueueHoldsInBatches() {
+        // Given
+        BoundedPasswordEncoder underTest = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(4), executor, Duration.ofSeconds(1), 1);
+        List<String> passwords = List.of("one", "two", "three", "four");
+
+        // When
+        List<String> hashes = underTest.encodeAll(passwords);
+
+        // Then
+        assertThat(hashes).hasSize(4);
+        for (int i = 0; i < passwords.size(); i++) {
+            assertThat(underTest.matches(passwords.get(i), hashes.get(i))).isTrue();
+        }
+    }
+
+    @Test
+    void willThrowWhenExecutorIsSaturated() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder underTest = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(4), executor, Duration.ofSeconds(2), 1);
+
+        // one hash running and one waiting fill the pool and its queue
+        Future<?> running = executor.submit(() -> {
+            release.await();
+            return null;
+        });
+        Future<?> queued = executor.submit(() -> null);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.encode("password"))
+                .isInstanceOf(ServiceOverloadedException.class)
+                .hasMessage("too many password hashes in progress, try again later")
+                .extracting("retryAfter")
+                .isEqualTo(Duration.ofSeconds(2));
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -13,6 +13,7 @@ export class CustomerComponent implements OnInit {
   display = false;
   operation: 'create' | 'update' = 'create';
   customers: CustomerDTO[] = [];
+  nextCursor?: string;
   customer: CustomerRegistrationRequest = {};
 
   constructor(
@@ -26,9 +27,19 @@ export class CustomerComponent implements OnInit {
   }
 
   private findAllCustomers() {
-    this.customerService.findAll().subscribe({
-      next: (res) => {
-        this.customers = res;
+    this.customerService.findPage().subscribe({
+      next: (page) => {
+        this.customers = page.content;
+        this.nextCursor = page.nextCursor;
+      },
+    });
+  }
+
+  loadMore() {
+    this.customerService.findPage(this.nextCursor).subscribe({
+      next: (page) => {
+        this.customers = [...this.customers, ...page.content];
+        this.nextCursor = page.nextCursor;
       },
     });
   }
@@ -0,0 +1,8 @@
+import { CustomerDTO } from './customer-dto';
+
+export interface CustomerPage {
+
+    content: CustomerDTO[],
+    nextCursor?: string,
+    previousCursor?: string
+}
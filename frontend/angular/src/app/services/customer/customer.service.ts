@@ -1,7 +1,7 @@
-import { HttpClient, HttpHeaders } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Injectable } from '@angular/core';
 import { Observable } from 'rxjs';
-import { CustomerDTO } from 'src/app/models/customer-dto';
+import { CustomerPage } from 'src/app/models/customer-page';
 import { CustomerRegistrationRequest } from 'src/app/models/customer-registration-request';
 import { CustomerUpdateRequest } from 'src/app/models/customer-update-request';
 import { environment } from 'src/environments/environment';
@@ -17,8 +17,9 @@ export class CustomerService {
     private http: HttpClient
   ) { }
 
-  findAll(): Observable<CustomerDTO[]> {
-    return this.http.get<CustomerDTO[]>(this.customerUrl)
+  findPage(cursor?: string): Observable<CustomerPage> {
+    const params = cursor ? new HttpParams().set('cursor', cursor) : undefined
+    return this.http.get<CustomerPage>(this.customerUrl, { params })
   }
 
   save(customer: CustomerRegistrationRequest): Observable<void>{
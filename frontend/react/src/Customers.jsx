@@ -1,4 +1,4 @@
-import { Spinner, Text, Wrap, WrapItem } from "@chakra-ui/react";
+import { Button, Center, Spinner, Text, Wrap, WrapItem } from "@chakra-ui/react";
 import SidebarWithHeader from "./components/shared/SideBar";
 import { useEffect, useState } from "react";
 import { getCustomers } from "./services/client";
@@ -8,14 +8,17 @@ import { errorNotification } from "./services/notification";
 
 const Customers = () => {
   const [customers, setCustomers] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState("");
 
   const fetchCustomers = () => {
     setLoading(true);
     getCustomers()
       .then((res) => {
-        setCustomers(res.data);
+        setCustomers(res.data.content);
+        setNextCursor(res.data.nextCursor);
       })
       .catch((err) => {
         setError(err?.response.data.message);
@@ -29,6 +32,24 @@ const Customers = () => {
       });
   };
 
+  const loadMoreCustomers = () => {
+    setLoadingMore(true);
+    getCustomers(nextCursor)
+      .then((res) => {
+        setCustomers((loaded) => [...loaded, ...res.data.content]);
+        setNextCursor(res.data.nextCursor);
+      })
+      .catch((err) => {
+        errorNotification(
+          err.code,
+          err?.response.data.message
+        )
+      })
+      .finally(() => {
+        setLoadingMore(false);
+      });
+  };
+
   useEffect(() => {
     fetchCustomers();
   }, []);
@@ -79,6 +100,18 @@ const Customers = () => {
           </WrapItem>
         ))}
       </Wrap>
+      {nextCursor && (
+        <Center mt={8}>
+          <Button
+            variant={"outline"}
+            colorScheme={"teal"}
+            isLoading={loadingMore}
+            onClick={loadMoreCustomers}
+          >
+            Load more
+          </Button>
+        </Center>
+      )}
     </SidebarWithHeader>
   );
 };
@@ -6,12 +6,14 @@ const getAuthConfig = () => ({
   },
 })
 
-export const getCustomers = async () => {
+export const getCustomers = async (cursor) => {
   try {
     return await axios.get(
       `${import.meta.env.VITE_API_BASE_URL}/api/v1/customers`,
-      getAuthConfig()
-
+      {
+        ...getAuthConfig(),
+        params: { cursor }
+      }
     );
   } catch (err) {
     console.log(err)